@@ -0,0 +1,109 @@
+package com.dpf.moira;
+
+import java.util.List;
+
+/**
+ * Cheap CPU only nodes, so the benchmarks measure the engine rather than the decisions.
+ */
+final class BenchmarkNodes {
+
+    enum Next {
+        NEXT
+    }
+
+    enum Parity {
+        EVEN, ODD
+    }
+
+    enum Answer {
+        YES, NO
+    }
+
+    enum Countdown {
+        MORE, DONE
+    }
+
+    private BenchmarkNodes() {
+    }
+
+    static List<Node<?, ?>> all() {
+        return List.of(new Validate(), new Normalize(), new Enrich(), new Score(), new IsEven(), new IsLarge(),
+                new IsPositive(), new CountdownNode(), new End());
+    }
+
+    @Decision(id = "validate")
+    static class Validate extends Node<BenchmarkScenario, Next> {
+        @Override
+        public Next execute(Scenario<BenchmarkScenario> scenario) {
+            scenario.get().score += scenario.get().value;
+            return Next.NEXT;
+        }
+    }
+
+    @Decision(id = "normalize")
+    static class Normalize extends Node<BenchmarkScenario, Next> {
+        @Override
+        public Next execute(Scenario<BenchmarkScenario> scenario) {
+            scenario.get().score ^= 0x5DEECE66DL;
+            return Next.NEXT;
+        }
+    }
+
+    @Decision(id = "enrich")
+    static class Enrich extends Node<BenchmarkScenario, Next> {
+        @Override
+        public Next execute(Scenario<BenchmarkScenario> scenario) {
+            scenario.get().score *= 31;
+            return Next.NEXT;
+        }
+    }
+
+    @Decision(id = "score")
+    static class Score extends Node<BenchmarkScenario, Next> {
+        @Override
+        public Next execute(Scenario<BenchmarkScenario> scenario) {
+            scenario.get().score += 7;
+            return Next.NEXT;
+        }
+    }
+
+    @Decision(id = "isEven")
+    static class IsEven extends Node<BenchmarkScenario, Parity> {
+        @Override
+        public Parity execute(Scenario<BenchmarkScenario> scenario) {
+            return (scenario.get().value & 1) == 0 ? Parity.EVEN : Parity.ODD;
+        }
+    }
+
+    @Decision(id = "isLarge")
+    static class IsLarge extends Node<BenchmarkScenario, Answer> {
+        @Override
+        public Answer execute(Scenario<BenchmarkScenario> scenario) {
+            return scenario.get().value > 1000 ? Answer.YES : Answer.NO;
+        }
+    }
+
+    @Decision(id = "isPositive")
+    static class IsPositive extends Node<BenchmarkScenario, Answer> {
+        @Override
+        public Answer execute(Scenario<BenchmarkScenario> scenario) {
+            return scenario.get().value > 0 ? Answer.YES : Answer.NO;
+        }
+    }
+
+    @Decision(id = "countdown")
+    static class CountdownNode extends Node<BenchmarkScenario, Countdown> {
+        @Override
+        public Countdown execute(Scenario<BenchmarkScenario> scenario) {
+            return --scenario.get().remaining > 0 ? Countdown.MORE : Countdown.DONE;
+        }
+    }
+
+    @Decision(id = "end")
+    static class End extends Node<BenchmarkScenario, Next> {
+        @Override
+        public Next execute(Scenario<BenchmarkScenario> scenario) {
+            return Next.NEXT;
+        }
+    }
+}
@@ -0,0 +1,22 @@
+package com.dpf.moira;
+
+/**
+ * Mutable scenario shared by the benchmark nodes.
+ */
+public class BenchmarkScenario {
+
+    int value;
+    int remaining;
+    long score;
+
+    public BenchmarkScenario(int value, int remaining) {
+        this.value = value;
+        this.remaining = remaining;
+    }
+
+    void reset(int value, int remaining) {
+        this.value = value;
+        this.remaining = remaining;
+        this.score = 0;
+    }
+}
@@ -0,0 +1,28 @@
+package com.dpf.moira;
+
+import com.dpf.moira.metrics.MoiraMetrics;
+import com.dpf.moira.properties.ExecutionMode;
+import com.dpf.moira.properties.MoiraProperties;
+import com.dpf.moira.properties.TraceLevel;
+
+final class BenchmarkSupport {
+
+    static final String WORKFLOWS_PATH = "bench-workflows";
+
+    private BenchmarkSupport() {
+    }
+
+    static MoiraProperties properties(ExecutionMode executionMode, boolean hotReload) {
+        MoiraProperties properties = new MoiraProperties();
+        properties.setWorkflowFilesPath(WORKFLOWS_PATH);
+        properties.setExecutionMode(executionMode);
+        properties.setHotReloadMode(hotReload);
+        properties.setTraceLevel(TraceLevel.OFF);
+        properties.setExecutionIdGenerator("COUNTER");
+        return properties;
+    }
+
+    static Moira moira(ExecutionMode executionMode, boolean hotReload) {
+        return new Moira(BenchmarkNodes.all(), properties(executionMode, hotReload), MoiraMetrics.noop());
+    }
+}
@@ -0,0 +1,52 @@
+package com.dpf.moira;
+
+import com.dpf.moira.properties.ExecutionMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A single node looping on itself, to measure the cost per hop of long executions.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DeepWorkflowBenchmark {
+
+    @Param({"10", "100", "1000", "10000"})
+    public int hops;
+
+    @Param({"REACTIVE", "SYNC"})
+    public ExecutionMode executionMode;
+
+    private Moira moira;
+    private BenchmarkScenario scenario;
+
+    @Setup
+    public void setUp() {
+        moira = BenchmarkSupport.moira(executionMode, false);
+        scenario = new BenchmarkScenario(0, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        moira.close();
+    }
+
+    @Benchmark
+    public int decide() {
+        scenario.reset(0, hops);
+        moira.decide("deep", scenario).block();
+        return scenario.remaining;
+    }
+
+    @Benchmark
+    public int decideSync() {
+        scenario.reset(0, hops);
+        moira.decideSync("deep", scenario);
+        return scenario.remaining;
+    }
+}
@@ -0,0 +1,57 @@
+package com.dpf.moira;
+
+import com.dpf.moira.metrics.MoiraMetrics;
+import com.dpf.moira.properties.ExecutionMode;
+import com.dpf.moira.properties.MoiraProperties;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The interpreter against the classes generated for the workflows, on a linear and a deep workflow.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GeneratedWorkflowBenchmark {
+
+    @Param({"", "*"})
+    public String generatedWorkflows;
+
+    @Param({"100"})
+    public int hops;
+
+    private Moira moira;
+    private BenchmarkScenario scenario;
+    private int value;
+
+    @Setup
+    public void setUp() {
+        MoiraProperties properties = BenchmarkSupport.properties(ExecutionMode.SYNC, false);
+        properties.setGeneratedWorkflows(generatedWorkflows);
+        moira = new Moira(BenchmarkNodes.all(), properties, MoiraMetrics.noop());
+        scenario = new BenchmarkScenario(0, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        moira.close();
+    }
+
+    @Benchmark
+    public long linear() {
+        scenario.reset(value++, 0);
+        moira.decideSync("linear", scenario);
+        return scenario.score;
+    }
+
+    @Benchmark
+    public int deep() {
+        scenario.reset(0, hops);
+        moira.decideSync("deep", scenario);
+        return scenario.remaining;
+    }
+}
@@ -0,0 +1,47 @@
+package com.dpf.moira;
+
+import com.dpf.moira.properties.ExecutionMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Execution throughput with hot reload enabled and disabled, with several threads executing at once.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Threads(4)
+@Fork(1)
+public class HotReloadBenchmark {
+
+    @Param({"false", "true"})
+    public boolean hotReload;
+
+    private Moira moira;
+
+    @Setup
+    public void setUp() {
+        moira = BenchmarkSupport.moira(ExecutionMode.SYNC, hotReload);
+    }
+
+    @TearDown
+    public void tearDown() {
+        moira.close();
+    }
+
+    @State(Scope.Thread)
+    public static class ThreadScenario {
+        final BenchmarkScenario scenario = new BenchmarkScenario(0, 0);
+        int value;
+    }
+
+    @Benchmark
+    public long decide(ThreadScenario state) {
+        state.scenario.reset(state.value++, 0);
+        moira.decide("linear", state.scenario).block();
+        return state.scenario.score;
+    }
+}
@@ -0,0 +1,64 @@
+package com.dpf.moira;
+
+import com.dpf.moira.properties.ExecutionMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link Moira#decide} and {@link Moira#decideSync} on short linear and branching workflows.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MoiraBenchmark {
+
+    @Param({"REACTIVE", "SYNC"})
+    public ExecutionMode executionMode;
+
+    private Moira moira;
+    private BenchmarkScenario scenario;
+    private int value;
+
+    @Setup
+    public void setUp() {
+        moira = BenchmarkSupport.moira(executionMode, false);
+        scenario = new BenchmarkScenario(0, 0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        moira.close();
+    }
+
+    @Benchmark
+    public long linearDecide() {
+        scenario.reset(value++, 0);
+        moira.decide("linear", scenario).block();
+        return scenario.score;
+    }
+
+    @Benchmark
+    public long linearDecideSync() {
+        scenario.reset(value++, 0);
+        moira.decideSync("linear", scenario);
+        return scenario.score;
+    }
+
+    @Benchmark
+    public long branchingDecide() {
+        scenario.reset(value++, 0);
+        moira.decide("branching", scenario).block();
+        return scenario.score;
+    }
+
+    @Benchmark
+    public long branchingDecideSync() {
+        scenario.reset(value++, 0);
+        moira.decideSync("branching", scenario);
+        return scenario.score;
+    }
+}
@@ -0,0 +1,71 @@
+package com.dpf.moira;
+
+import com.dpf.moira.entity.NodeId;
+import org.openjdk.jmh.annotations.*;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link NodeRegistry#get} with the same node ID registered for a growing number of scenario classes.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class NodeRegistryBenchmark {
+
+    enum Result {
+        DONE
+    }
+
+    private static final List<Node<?, ?>> NODES = List.of(
+            new Node<String, Result>() { @Override public Result execute(Scenario<String> s) { return Result.DONE; } },
+            new Node<Integer, Result>() { @Override public Result execute(Scenario<Integer> s) { return Result.DONE; } },
+            new Node<Long, Result>() { @Override public Result execute(Scenario<Long> s) { return Result.DONE; } },
+            new Node<Double, Result>() { @Override public Result execute(Scenario<Double> s) { return Result.DONE; } },
+            new Node<Float, Result>() { @Override public Result execute(Scenario<Float> s) { return Result.DONE; } },
+            new Node<Short, Result>() { @Override public Result execute(Scenario<Short> s) { return Result.DONE; } },
+            new Node<Byte, Result>() { @Override public Result execute(Scenario<Byte> s) { return Result.DONE; } },
+            new Node<Character, Result>() { @Override public Result execute(Scenario<Character> s) { return Result.DONE; } },
+            new Node<Boolean, Result>() { @Override public Result execute(Scenario<Boolean> s) { return Result.DONE; } },
+            new Node<BigDecimal, Result>() { @Override public Result execute(Scenario<BigDecimal> s) { return Result.DONE; } },
+            new Node<BigInteger, Result>() { @Override public Result execute(Scenario<BigInteger> s) { return Result.DONE; } },
+            new Node<LocalDate, Result>() { @Override public Result execute(Scenario<LocalDate> s) { return Result.DONE; } },
+            new Node<LocalTime, Result>() { @Override public Result execute(Scenario<LocalTime> s) { return Result.DONE; } },
+            new Node<Instant, Result>() { @Override public Result execute(Scenario<Instant> s) { return Result.DONE; } },
+            new Node<Duration, Result>() { @Override public Result execute(Scenario<Duration> s) { return Result.DONE; } },
+            new Node<UUID, Result>() { @Override public Result execute(Scenario<UUID> s) { return Result.DONE; } });
+
+    @Param({"1", "4", "16"})
+    public int scenarioClasses;
+
+    private NodeRegistry nodeRegistry;
+    private NodeId nodeId;
+    private Class<?>[] lookups;
+    private int index;
+
+    @Setup
+    public void setUp() {
+        List<Node<?, ?>> nodes = new ArrayList<>(NODES.subList(0, scenarioClasses));
+        nodeRegistry = new NodeRegistry(nodes);
+        nodeId = new NodeId(NodeMetadata.of(nodes.get(0)).getId());
+        lookups = nodes.stream().map(Node::getScenarioClass).toArray(Class<?>[]::new);
+    }
+
+    @Benchmark
+    public Object get() {
+        Class<?> scenarioClass = lookups[index++ % lookups.length];
+        return nodeRegistry.get(nodeId, scenarioClass);
+    }
+}
@@ -0,0 +1,81 @@
+package com.dpf.moira;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Cold {@link ResourceLoader#loadWorkflows} over a directory of generated workflow files, compared with loading the
+ * same workflows from a {@link WorkflowIndex}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ResourceLoaderBenchmark {
+
+    @Param({"100", "500"})
+    public int files;
+
+    private Path directory;
+
+    private Path index;
+
+    @Setup
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("moira-workflows");
+        for (int i = 0; i < files; i++) {
+            Files.writeString(directory.resolve("workflow" + i + ".yml"), workflow(i));
+        }
+        index = Files.createTempFile("moira-workflows", ".bin");
+        WorkflowCompiler.compile(directory, index);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        try (Stream<Path> paths = Files.walk(directory)) {
+            paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+        }
+        Files.deleteIfExists(index);
+    }
+
+    private static String workflow(int index) {
+        StringBuilder yml = new StringBuilder()
+                .append("id: workflow").append(index).append('\n')
+                .append("start: node0\n")
+                .append("nodes:\n");
+        for (int node = 0; node < 20; node++) {
+            yml.append("  - id: node").append(node).append('\n')
+                    .append("    transitions:\n")
+                    .append("      - result: YES\n")
+                    .append("        next: node").append(node + 1).append('\n')
+                    .append("      - result: NO\n")
+                    .append("        next: end\n");
+        }
+        yml.append("  - id: node20\n")
+                .append("  - id: end\n");
+        return yml.toString();
+    }
+
+    @Benchmark
+    public List<?> loadWorkflows() {
+        return new ResourceLoader().loadWorkflows(directory);
+    }
+
+    @Benchmark
+    public List<?> loadIndex() throws IOException {
+        try (FileChannel channel = FileChannel.open(index, StandardOpenOption.READ)) {
+            return WorkflowIndex.read(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+}
@@ -0,0 +1,23 @@
+package com.dpf.moira;
+
+import reactor.core.publisher.Mono;
+
+/**
+ * A node whose decision is computed without blocking, for example a lookup against a remote store.
+ * <p>
+ * {@code Moira.decide} composes the returned Mono without blocking any thread. The synchronous entry points, such as
+ * {@code Moira.decideSync}, block until it emits.
+ *
+ * @param <S> the scenario type
+ * @param <E> the result type
+ */
+public abstract class AsyncNode<S, E extends Enum<E>> extends Node<S, E> {
+
+    abstract public Mono<E> executeAsync(Scenario<S> scenario);
+
+    @Override
+    public final E execute(Scenario<S> scenario) {
+        return executeAsync(scenario).block();
+    }
+
+}
@@ -0,0 +1,43 @@
+package com.dpf.moira;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The aggregated results of executing a workflow over a batch of scenarios.
+ *
+ * @param <S> the scenario type
+ */
+public final class BatchResult<S> {
+
+    private final List<DecisionResult<S>> results;
+
+    BatchResult(List<DecisionResult<S>> results) {
+        this.results = Collections.unmodifiableList(results);
+    }
+
+    /**
+     * @return the result of every scenario, in completion order
+     */
+    public List<DecisionResult<S>> getResults() {
+        return results;
+    }
+
+    public List<S> getSucceeded() {
+        return results.stream()
+                .filter(DecisionResult::isSuccess)
+                .map(DecisionResult::getScenario)
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    public List<DecisionResult<S>> getFailed() {
+        return results.stream()
+                .filter(result -> !result.isSuccess())
+                .collect(Collectors.toUnmodifiableList());
+    }
+
+    public boolean hasFailures() {
+        return results.stream().anyMatch(result -> !result.isSuccess());
+    }
+}
@@ -0,0 +1,22 @@
+package com.dpf.moira;
+
+import reactor.core.publisher.Mono;
+
+import java.util.concurrent.CompletionStage;
+
+/**
+ * An {@link AsyncNode} for clients that return {@link CompletionStage}s, such as asynchronous JDBC or HTTP clients.
+ *
+ * @param <S> the scenario type
+ * @param <E> the result type
+ */
+public abstract class CompletionStageNode<S, E extends Enum<E>> extends AsyncNode<S, E> {
+
+    abstract public CompletionStage<E> executeStage(Scenario<S> scenario);
+
+    @Override
+    public final Mono<E> executeAsync(Scenario<S> scenario) {
+        return Mono.fromCompletionStage(() -> executeStage(scenario));
+    }
+
+}
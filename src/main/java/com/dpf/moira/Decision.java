@@ -1,5 +1,7 @@
 package com.dpf.moira;
 
+import com.dpf.moira.cache.CacheKeyExtractor;
+
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
 import java.lang.annotation.RetentionPolicy;
@@ -13,4 +15,53 @@ public @interface Decision {
 
     String description() default "";
 
+    /**
+     * Whether results are cached and shared across executions. Only suitable for nodes whose result depends solely
+     * on the key extracted by {@link #cacheKey()} and that have no side effects.
+     */
+    boolean cacheable() default false;
+
+    /**
+     * Extracts the cache key from the scenario, required when the node is {@link #cacheable()}. Use
+     * {@link com.dpf.moira.cache.ScenarioCacheKey} to key on the scenario itself when it is immutable and implements
+     * {@code equals} and {@code hashCode}.
+     */
+    @SuppressWarnings("rawtypes")
+    Class<? extends CacheKeyExtractor> cacheKey() default CacheKeyExtractor.class;
+
+    /**
+     * The maximum number of cached results, least recently used ones being evicted first.
+     */
+    int cacheSize() default 1000;
+
+    /**
+     * How long a cached result is used, or {@code 0} to keep it until evicted.
+     */
+    long cacheTtlMillis() default 0;
+
+    /**
+     * How long the node may run before it is interrupted and the execution follows the {@code onTimeout} transition
+     * of the node, or {@code 0} when it is not bounded. A {@code timeoutMillis} declared on the node in the workflow
+     * takes precedence.
+     */
+    long timeoutMillis() default 0;
+
+    /**
+     * How many executions of the node may run at once across all workflows, or {@code 0} when they are not limited.
+     */
+    int maxConcurrency() default 0;
+
+    /**
+     * How many executions of the node may start per second across all workflows, or {@code 0} when they are not
+     * limited. Up to one second of unused permits can be taken in a burst.
+     */
+    double maxRatePerSecond() default 0;
+
+    /**
+     * The result the node decides, without being executed, when it is over {@link #maxConcurrency()} or
+     * {@link #maxRatePerSecond()}, so the execution follows its transition. When empty, executions wait until the
+     * node is within its limits.
+     */
+    String overflowResult() default "";
+
 }
@@ -0,0 +1,48 @@
+package com.dpf.moira;
+
+import java.util.Optional;
+
+/**
+ * The result of executing a workflow over one scenario of a batch.
+ *
+ * @param <S> the scenario type
+ */
+public final class DecisionResult<S> {
+
+    private final S scenario;
+    private final Outcome outcome;
+    private final Throwable error;
+
+    private DecisionResult(S scenario, Outcome outcome, Throwable error) {
+        this.scenario = scenario;
+        this.outcome = outcome;
+        this.error = error;
+    }
+
+    static <S> DecisionResult<S> success(S scenario, Outcome outcome) {
+        return new DecisionResult<>(scenario, outcome, null);
+    }
+
+    static <S> DecisionResult<S> failure(S scenario, Throwable error) {
+        return new DecisionResult<>(scenario, null, error);
+    }
+
+    public S getScenario() {
+        return scenario;
+    }
+
+    /**
+     * @return the terminal node reached and its result, or empty when the execution failed
+     */
+    public Optional<Outcome> getOutcome() {
+        return Optional.ofNullable(outcome);
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public Optional<Throwable> getError() {
+        return Optional.ofNullable(error);
+    }
+}
@@ -0,0 +1,380 @@
+package com.dpf.moira;
+
+import com.dpf.moira.cache.CacheKeyExtractor;
+import com.dpf.moira.entity.DecisionNodeResult;
+import com.dpf.moira.entity.Fork;
+import com.dpf.moira.entity.NodeId;
+import com.dpf.moira.entity.Transitions;
+import com.dpf.moira.entity.Workflow;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * A workflow compiled for a concrete scenario class.
+ * <p>
+ * Nodes are resolved to dense integer slots with their {@link Node} instance bound up front, and transitions are
+ * resolved into tables indexed by the ordinal of the result enum, so moving from one node to the next is an array
+ * access with no map lookups and no allocation. Forks have no node bound, their branches and transitions are resolved
+ * into a {@link ForkPlan} instead. Timeouts are resolved to nanoseconds, with their fallbacks resolved to slots.
+ */
+final class ExecutionPlan {
+
+    /**
+     * Returned by {@link #next(int, Enum)} when the node has no transition for the given result.
+     */
+    static final int NO_TRANSITION = -1;
+
+    /**
+     * Returned by {@link #next(int, Enum)} when the transition targets a node not declared in the workflow.
+     */
+    static final int UNDECLARED_NODE = -2;
+
+    private final Workflow workflow;
+    private final long version;
+    private final long nodesVersion;
+    private final CacheKeyExtractor<Object> cacheKey;
+    private final int start;
+    private final NodeId[] nodeIds;
+    private final Node<?, ?>[] nodes;
+    private final NodeMetadata[] metadata;
+    private final NodeCache[] caches;
+    private final NodeLimiter[] limiters;
+    private final ForkPlan[] forks;
+    private final boolean[] async;
+    private final boolean hasAsyncNodes;
+    private final int[][] transitions;
+    private final long[] timeouts;
+    private final int[] timeoutFallbacks;
+    private final long timeout;
+    private final int timeoutFallback;
+    private volatile Optional<GeneratedWorkflow> generated;
+
+    private ExecutionPlan(Workflow workflow, long version, long nodesVersion, CacheKeyExtractor<Object> cacheKey, int start,
+                          NodeId[] nodeIds, Node<?, ?>[] nodes, NodeMetadata[] metadata, NodeCache[] caches,
+                          NodeLimiter[] limiters, ForkPlan[] forks, int[][] transitions, long[] timeouts, int[] timeoutFallbacks,
+                          int timeoutFallback) {
+        this.workflow = workflow;
+        this.version = version;
+        this.nodesVersion = nodesVersion;
+        this.cacheKey = cacheKey;
+        this.start = start;
+        this.nodeIds = nodeIds;
+        this.nodes = nodes;
+        this.metadata = metadata;
+        this.caches = caches;
+        this.limiters = limiters;
+        this.forks = forks;
+        this.transitions = transitions;
+        this.timeouts = timeouts;
+        this.timeoutFallbacks = timeoutFallbacks;
+        this.timeout = TimeUnit.MILLISECONDS.toNanos(workflow.getTimeoutMillis());
+        this.timeoutFallback = timeoutFallback;
+        this.async = new boolean[nodes.length];
+        boolean anyAsync = false;
+        for (int slot = 0; slot < nodes.length; slot++) {
+            async[slot] = nodes[slot] instanceof AsyncNode || (forks != null && forks[slot] != null)
+                    || limiters[slot] != null;
+            anyAsync |= async[slot];
+        }
+        this.hasAsyncNodes = anyAsync;
+    }
+
+    static ExecutionPlan compile(Workflow workflow, long version, CacheKeyExtractor<Object> cacheKey,
+                                 NodeRegistry nodeRegistry, Class<?> scenarioClass) {
+        NodeRegistry.Snapshot nodeSnapshot = nodeRegistry.snapshot();
+        Map<NodeId, Integer> slots = new HashMap<>();
+        List<NodeId> nodeIds = new ArrayList<>(workflow.getTransitionsByNode().keySet());
+        for (int slot = 0; slot < nodeIds.size(); slot++) {
+            slots.put(nodeIds.get(slot), slot);
+        }
+
+        int size = nodeIds.size();
+        Node<?, ?>[] nodes = new Node<?, ?>[size];
+        NodeMetadata[] metadata = new NodeMetadata[size];
+        NodeCache[] caches = new NodeCache[size];
+        NodeLimiter[] limiters = new NodeLimiter[size];
+        ForkPlan[] forks = workflow.getForks().isEmpty() ? null : new ForkPlan[size];
+        int[][] transitions = new int[size][];
+        long[] timeouts = new long[size];
+        int[] timeoutFallbacks = new int[size];
+        for (int slot = 0; slot < size; slot++) {
+            NodeId nodeId = nodeIds.get(slot);
+            Transitions declared = workflow.getTransitionsByNode().get(nodeId);
+            Map<DecisionNodeResult, NodeId> nodeTransitions = declared.getTransitions();
+            timeoutFallbacks[slot] = fallbackSlot(declared.getOnTimeout(), slots);
+            Fork fork = workflow.getForks().get(nodeId);
+            if (fork != null) {
+                forks[slot] = compileFork(workflow, fork, nodeTransitions, slots);
+                metadata[slot] = NodeMetadata.of(nodeId.getValue(),
+                        String.format("fork of %s joining %s", fork.getBranches(), fork.getJoin()));
+                transitions[slot] = nodeTransitions.isEmpty() ? null : new int[0];
+                continue;
+            }
+
+            Node<?, ?> node = nodeSnapshot.get(workflow.getRegisteredNode(nodeId), scenarioClass).orElse(null);
+            nodes[slot] = node;
+            metadata[slot] = node != null ? nodeSnapshot.getMetadata(node) : null;
+            caches[slot] = node != null ? nodeSnapshot.getCache(node) : null;
+            limiters[slot] = node != null ? nodeSnapshot.getLimiter(node) : null;
+            if (node != null && !nodeTransitions.isEmpty()) {
+                transitions[slot] = compileTransitions(node.getResultClass(), nodeTransitions, slots);
+            }
+            long timeoutMillis = declared.getTimeoutMillis() > 0 ? declared.getTimeoutMillis()
+                    : metadata[slot] != null ? metadata[slot].getTimeoutMillis() : 0;
+            timeouts[slot] = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+        }
+
+        int start = slots.getOrDefault(workflow.getStart(), UNDECLARED_NODE);
+        return new ExecutionPlan(workflow, version, nodeSnapshot.getVersion(), cacheKey, start,
+                nodeIds.toArray(new NodeId[0]), nodes, metadata, caches, limiters, forks, transitions, timeouts,
+                timeoutFallbacks, fallbackSlot(workflow.getOnTimeout(), slots));
+    }
+
+    private static int fallbackSlot(NodeId fallback, Map<NodeId, Integer> slots) {
+        return fallback != null ? slots.getOrDefault(fallback, UNDECLARED_NODE) : NO_TRANSITION;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ForkPlan compileFork(Workflow workflow, Fork fork, Map<DecisionNodeResult, NodeId> nodeTransitions,
+                                        Map<NodeId, Integer> slots) {
+        int[] branches = new int[fork.getBranches().size()];
+        for (int i = 0; i < branches.length; i++) {
+            branches[i] = slots.getOrDefault(fork.getBranches().get(i), UNDECLARED_NODE);
+        }
+        Map<String, Integer> targets = new HashMap<>();
+        nodeTransitions.forEach((result, next) -> targets.put(result.getValue(), slots.getOrDefault(next, UNDECLARED_NODE)));
+        ScenarioPartitioner<Object> partitioner = WorkFlowRegistry.newInstance(
+                fork.getPartitioner(), ScenarioPartitioner.class, "scenario partitioner", workflow);
+        return new ForkPlan(branches, fork.getJoin(), partitioner, targets);
+    }
+
+    private static int[] compileTransitions(Class<? extends Enum<?>> resultClass,
+                                            Map<DecisionNodeResult, NodeId> nodeTransitions,
+                                            Map<NodeId, Integer> slots) {
+        Enum<?>[] results = resultClass.getEnumConstants();
+        int[] table = new int[results.length];
+        Arrays.fill(table, NO_TRANSITION);
+        for (Enum<?> result : results) {
+            NodeId next = nodeTransitions.get(new DecisionNodeResult(result.name()));
+            if (next != null) {
+                table[result.ordinal()] = slots.getOrDefault(next, UNDECLARED_NODE);
+            }
+        }
+        return table;
+    }
+
+    Workflow getWorkflow() {
+        return workflow;
+    }
+
+    /**
+     * @return the version of the workflow, which changes every time it is reloaded
+     */
+    long getVersion() {
+        return version;
+    }
+
+    /**
+     * @return the version of the registered nodes the plan was compiled against
+     */
+    long getNodesVersion() {
+        return nodesVersion;
+    }
+
+    /**
+     * @return the extractor of the key the outcome of the workflow is cached by, or {@code null} when it is not cached
+     */
+    CacheKeyExtractor<Object> getCacheKey() {
+        return cacheKey;
+    }
+
+    int getStart() {
+        return start;
+    }
+
+    /**
+     * @return the number of slots
+     */
+    int size() {
+        return nodeIds.length;
+    }
+
+    /**
+     * Returns the generated code of the plan, asking the generator for it on first call.
+     *
+     * @param generator generates the code of the plan, or returns {@code null} when the plan is interpreted
+     * @return the generated code, or {@code null} when the plan is interpreted
+     */
+    GeneratedWorkflow getGenerated(Function<ExecutionPlan, GeneratedWorkflow> generator) {
+        Optional<GeneratedWorkflow> current = generated;
+        if (current == null) {
+            synchronized (this) {
+                current = generated;
+                if (current == null) {
+                    current = Optional.ofNullable(generator.apply(this));
+                    generated = current;
+                }
+            }
+        }
+        return current.orElse(null);
+    }
+
+    NodeId getNodeId(int slot) {
+        return nodeIds[slot];
+    }
+
+    @SuppressWarnings("unchecked")
+    <S> Node<S, ?> getNode(int slot) {
+        return (Node<S, ?>) nodes[slot];
+    }
+
+    NodeMetadata getMetadata(int slot) {
+        return metadata[slot];
+    }
+
+    /**
+     * @return the result cache of the node in the slot, or {@code null} when it is not cacheable
+     */
+    NodeCache getCache(int slot) {
+        return caches[slot];
+    }
+
+    /**
+     * @return the concurrency and rate limits of the node in the slot, or {@code null} when it has none
+     */
+    NodeLimiter getLimiter(int slot) {
+        return limiters[slot];
+    }
+
+    boolean isFork(int slot) {
+        return forks != null && forks[slot] != null;
+    }
+
+    ForkPlan getFork(int slot) {
+        return forks[slot];
+    }
+
+    /**
+     * @return whether the node in the slot completes without blocking, which is the case of asynchronous nodes,
+     * forks and limited nodes, which wait for their limits without blocking
+     */
+    boolean isAsync(int slot) {
+        return async[slot];
+    }
+
+    boolean hasAsyncNodes() {
+        return hasAsyncNodes;
+    }
+
+    /**
+     * @return how long the node in the slot may run in nanoseconds, or {@code 0} when it is not bounded
+     */
+    long getTimeout(int slot) {
+        return timeouts[slot];
+    }
+
+    /**
+     * @return the slot to go to when the node in the slot times out, or {@link #NO_TRANSITION} when it has no fallback
+     */
+    int getTimeoutFallback(int slot) {
+        return timeoutFallbacks[slot];
+    }
+
+    /**
+     * @return how long an execution may run in nanoseconds, or {@code 0} when it is not bounded
+     */
+    long getTimeout() {
+        return timeout;
+    }
+
+    /**
+     * @return the slot to go to when an execution runs out of time, or {@link #NO_TRANSITION} to fail it
+     */
+    int getTimeoutFallback() {
+        return timeoutFallback;
+    }
+
+    boolean isTerminal(int slot) {
+        return transitions[slot] == null;
+    }
+
+    /**
+     * Resolves the slot of the node reached from {@code slot} when it decides {@code result}.
+     *
+     * @return the next slot, or {@link #NO_TRANSITION} / {@link #UNDECLARED_NODE} when it cannot be resolved
+     */
+    int next(int slot, Enum<?> result) {
+        if (forks != null && forks[slot] != null) {
+            return forks[slot].next(result);
+        }
+        if (result == null) {
+            return NO_TRANSITION;
+        }
+        int[] table = transitions[slot];
+        int ordinal = result.ordinal();
+        return ordinal < table.length ? table[ordinal] : NO_TRANSITION;
+    }
+
+    /**
+     * Resolves the declared target of a transition by name. Only meant for error reporting.
+     */
+    NodeId getDeclaredNext(int slot, Enum<?> result) {
+        Transitions nodeTransitions = workflow.getTransitionsByNode().get(nodeIds[slot]);
+        NodeId next = result != null ? nodeTransitions.getTransitions().get(new DecisionNodeResult(result.name())) : null;
+        if (next == null && isFork(slot)) {
+            next = nodeTransitions.getTransitions().get(new DecisionNodeResult(ForkResult.DONE.name()));
+        }
+        return next;
+    }
+
+    /**
+     * A fork compiled for the plan: the slots its branches start at and its transitions by result name.
+     */
+    static final class ForkPlan {
+
+        private final int[] branches;
+        private final Fork.Join join;
+        private final ScenarioPartitioner<Object> partitioner;
+        private final Map<String, Integer> transitions;
+        private final int done;
+
+        private ForkPlan(int[] branches, Fork.Join join, ScenarioPartitioner<Object> partitioner,
+                         Map<String, Integer> transitions) {
+            this.branches = branches;
+            this.join = join;
+            this.partitioner = partitioner;
+            this.transitions = transitions;
+            this.done = transitions.getOrDefault(ForkResult.DONE.name(), NO_TRANSITION);
+        }
+
+        /**
+         * @return the slots the branches start at, {@link #UNDECLARED_NODE} for a branch not declared in the workflow
+         */
+        int[] getBranches() {
+            return branches;
+        }
+
+        Fork.Join getJoin() {
+            return join;
+        }
+
+        /**
+         * @return the partitioner of the scenario, or {@code null} when every branch runs on the same scenario
+         */
+        ScenarioPartitioner<Object> getPartitioner() {
+            return partitioner;
+        }
+
+        private int next(Enum<?> result) {
+            Integer next = result != null ? transitions.get(result.name()) : null;
+            return next != null ? next : done;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.dpf.moira;
+
+import com.dpf.moira.entity.NodeId;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * The outcome of a finished execution: the nodes visited, in order, and the result each of them decided.
+ */
+final class ExecutionRecord {
+
+    private final List<NodeId> path;
+    private final List<Enum<?>> results;
+
+    ExecutionRecord(List<NodeId> path, List<Enum<?>> results) {
+        this.path = Collections.unmodifiableList(path);
+        this.results = Collections.unmodifiableList(results);
+    }
+
+    List<NodeId> getPath() {
+        return path;
+    }
+
+    /**
+     * @return the result decided by every node of the path, some of which may be {@code null}
+     */
+    List<Enum<?>> getResults() {
+        return results;
+    }
+
+    NodeId getTerminalNode() {
+        return path.get(path.size() - 1);
+    }
+
+    /**
+     * @return the result decided by the terminal node, which may be {@code null}
+     */
+    Enum<?> getResult() {
+        return results.get(results.size() - 1);
+    }
+}
@@ -0,0 +1,13 @@
+package com.dpf.moira;
+
+/**
+ * Thrown when a workflow execution or one of its nodes runs out of time and no {@code onTimeout} fallback is declared.
+ */
+public class ExecutionTimeoutException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    public ExecutionTimeoutException(String message) {
+        super(message);
+    }
+}
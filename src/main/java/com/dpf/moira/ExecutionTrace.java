@@ -0,0 +1,105 @@
+package com.dpf.moira;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * The path taken by an execution: every node executed, in order, with the result it decided and how long it took.
+ */
+public final class ExecutionTrace {
+
+    private final String executionId;
+    private final String workflowId;
+    private final List<Step> steps;
+    private final long durationNanos;
+    private final boolean cached;
+    private final Throwable error;
+
+    ExecutionTrace(String executionId, String workflowId, List<Step> steps, long durationNanos, boolean cached,
+                   Throwable error) {
+        this.executionId = executionId;
+        this.workflowId = workflowId;
+        this.steps = List.copyOf(steps);
+        this.durationNanos = durationNanos;
+        this.cached = cached;
+        this.error = error;
+    }
+
+    public String getExecutionId() {
+        return executionId;
+    }
+
+    public String getWorkflowId() {
+        return workflowId;
+    }
+
+    /**
+     * @return the nodes executed, in order. When the execution failed, the node that failed is not included
+     */
+    public List<Step> getSteps() {
+        return steps;
+    }
+
+    public long getDurationNanos() {
+        return durationNanos;
+    }
+
+    /**
+     * @return whether the path was taken from the workflow outcome cache, in which case no node was executed and
+     * the steps have no timings
+     */
+    public boolean isCached() {
+        return cached;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public Optional<Throwable> getError() {
+        return Optional.ofNullable(error);
+    }
+
+    @Override
+    public String toString() {
+        return "[" + executionId + "] " + workflowId + " " + steps + " in " + durationNanos + "ns"
+                + (cached ? " (cached)" : "")
+                + (error != null ? " failed: " + error : "");
+    }
+
+    /**
+     * A node executed as part of an execution.
+     */
+    public static final class Step {
+
+        private final String nodeId;
+        private final Enum<?> result;
+        private final long nanos;
+
+        Step(String nodeId, Enum<?> result, long nanos) {
+            this.nodeId = nodeId;
+            this.result = result;
+            this.nanos = nanos;
+        }
+
+        public String getNodeId() {
+            return nodeId;
+        }
+
+        /**
+         * @return the result decided by the node, which may be {@code null} for a terminal node
+         */
+        public Enum<?> getResult() {
+            return result;
+        }
+
+        public long getNanos() {
+            return nanos;
+        }
+
+        @Override
+        public String toString() {
+            return nodeId + "=" + result + " (" + nanos + "ns)";
+        }
+    }
+}
@@ -0,0 +1,152 @@
+package com.dpf.moira;
+
+import com.dpf.moira.entity.Fork;
+import reactor.core.Disposable;
+import reactor.core.scheduler.Scheduler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Runs the branches of a fork in parallel for executions that block the calling thread.
+ * <p>
+ * Every branch but the first is offered to the scheduler, then the calling thread runs the branches nobody has taken
+ * yet. A thread only waits for branches already running on another thread, so forks never deadlock on a busy
+ * scheduler, even when nested. Once the fork is joined, the branches left on the scheduler are disposed, which takes
+ * them off it or interrupts them when already running.
+ */
+final class ForkJoiner {
+
+    private ForkJoiner() {
+    }
+
+    /**
+     * @param cancel stops the branches still running, called as soon as the fork is joined
+     * @return the results of every branch in order with an {@code ALL} join, else the result of the winning branch
+     */
+    static <T> List<T> join(List<Callable<T>> branches, Runnable cancel, Fork.Join join, Scheduler scheduler) {
+        Joined<T> joined = new Joined<>(branches.size(), join);
+        joined.whenComplete((results, error) -> cancel.run());
+        List<Branch<T>> pending = new ArrayList<>(branches.size());
+        for (int i = 0; i < branches.size(); i++) {
+            pending.add(new Branch<>(i, branches.get(i), joined));
+        }
+        List<Disposable> scheduled = new ArrayList<>(pending.size() - 1);
+        for (int i = 1; i < pending.size(); i++) {
+            try {
+                scheduled.add(scheduler.schedule(pending.get(i)));
+            } catch (RejectedExecutionException e) {
+                break;
+            }
+        }
+        for (Branch<T> branch : pending) {
+            if (joined.isDone()) {
+                break;
+            }
+            branch.run();
+        }
+        try {
+            return joined.join();
+        } catch (CompletionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            if (cause instanceof Error) {
+                throw (Error) cause;
+            }
+            throw e;
+        } finally {
+            scheduled.forEach(Disposable::dispose);
+        }
+    }
+
+    private static final class Joined<T> extends CompletableFuture<List<T>> {
+
+        private final Fork.Join join;
+        private final AtomicReferenceArray<T> results;
+        private final AtomicInteger remaining;
+        private volatile Throwable firstError;
+
+        private Joined(int size, Fork.Join join) {
+            this.join = join;
+            this.results = new AtomicReferenceArray<>(size);
+            this.remaining = new AtomicInteger(size);
+        }
+
+        private void succeeded(int index, T result) {
+            if (join != Fork.Join.ALL) {
+                complete(List.of(result));
+                return;
+            }
+            results.set(index, result);
+            if (remaining.decrementAndGet() == 0) {
+                List<T> all = new ArrayList<>(results.length());
+                for (int i = 0; i < results.length(); i++) {
+                    all.add(results.get(i));
+                }
+                complete(all);
+            }
+        }
+
+        /**
+         * Fails the join, except with {@code ANY} while some branch may still complete. When every branch fails, the
+         * first error is thrown with the others suppressed.
+         */
+        private void failed(Throwable error) {
+            if (join != Fork.Join.ANY) {
+                completeExceptionally(error);
+                return;
+            }
+            synchronized (this) {
+                if (firstError == null) {
+                    firstError = error;
+                } else {
+                    firstError.addSuppressed(error);
+                }
+            }
+            if (remaining.decrementAndGet() == 0) {
+                completeExceptionally(firstError);
+            }
+        }
+    }
+
+    /**
+     * A branch run once, by whichever thread claims it first. Branches are skipped once the fork is joined.
+     */
+    private static final class Branch<T> implements Runnable {
+
+        private final int index;
+        private final Callable<T> callable;
+        private final Joined<T> joined;
+        private final AtomicBoolean claimed = new AtomicBoolean();
+
+        private Branch(int index, Callable<T> callable, Joined<T> joined) {
+            this.index = index;
+            this.callable = callable;
+            this.joined = joined;
+        }
+
+        @Override
+        public void run() {
+            if (joined.isDone() || !claimed.compareAndSet(false, true)) {
+                return;
+            }
+            T result;
+            try {
+                result = callable.call();
+            } catch (Throwable e) {
+                joined.failed(e);
+                return;
+            }
+            joined.succeeded(index, result);
+        }
+    }
+}
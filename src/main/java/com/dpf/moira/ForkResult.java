@@ -0,0 +1,9 @@
+package com.dpf.moira;
+
+/**
+ * The result decided by a fork joining {@code ALL} its branches. Forks joining {@code ANY} or {@code FIRST} decide the
+ * result of the winning branch, and follow the transition for {@code DONE} when they have none for it.
+ */
+public enum ForkResult {
+    DONE
+}
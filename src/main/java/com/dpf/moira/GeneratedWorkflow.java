@@ -0,0 +1,62 @@
+package com.dpf.moira;
+
+/**
+ * The code generated by {@link WorkflowGenerator} for an execution plan. Subclasses walk the workflow in a single
+ * method, calling every bound node through its own class and switching on the ordinal of its result, so the JIT sees a
+ * monomorphic call site per node and can inline it.
+ * <p>
+ * Everything else an execution does, counting hops, recording the path taken and ending the execution, goes through
+ * the {@link Steps} of the engine, so the generated code behaves as the interpreter does.
+ */
+abstract class GeneratedWorkflow {
+
+    final Node<?, ?>[] nodes;
+    final Steps steps;
+
+    /**
+     * @param nodes the nodes of the plan by slot
+     * @param steps the callbacks of the engine running the workflow
+     */
+    GeneratedWorkflow(Node<?, ?>[] nodes, Steps steps) {
+        this.nodes = nodes;
+        this.steps = steps;
+    }
+
+    /**
+     * Walks the workflow from its start node until a terminal node.
+     *
+     * @param cursor the position of the execution, passed back to the {@link Steps}
+     * @return the result of the terminal node
+     */
+    abstract Enum<?> run(Scenario<?> scenario, Object cursor);
+
+    /**
+     * Resolves the slot reached from {@code slot} when its node decides the result with the given ordinal, as
+     * {@link ExecutionPlan#next(int, Enum)} does.
+     *
+     * @return the next slot, or a negative value when the node is terminal or the transition cannot be resolved
+     */
+    abstract int next(int slot, int ordinal);
+
+    /**
+     * The parts of an execution the generated code leaves to the engine.
+     */
+    interface Steps {
+
+        /**
+         * Called before every node.
+         */
+        void hop(Object cursor, Scenario<?> scenario);
+
+        /**
+         * Called with the result of every node.
+         */
+        void record(Object cursor, int slot, Enum<?> result);
+
+        /**
+         * Called when the node in the slot is terminal or has no transition for its result, which fails the
+         * execution.
+         */
+        void end(Object cursor, int slot, Enum<?> result, Scenario<?> scenario);
+    }
+}
@@ -0,0 +1,38 @@
+package com.dpf.moira;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the workflow reload periodically on a background daemon thread, so executions never pay for it.
+ */
+final class HotReloadWatcher implements AutoCloseable {
+
+    private static final Logger logger = LoggerFactory.getLogger(HotReloadWatcher.class);
+
+    private final ScheduledExecutorService executor;
+
+    HotReloadWatcher(Runnable reload, long intervalMillis) {
+        this.executor = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "moira-hot-reload");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.executor.scheduleWithFixedDelay(() -> {
+            try {
+                reload.run();
+            } catch (RuntimeException e) {
+                logger.error("Error reloading workflows, keeping the previous ones", e);
+            }
+        }, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public void close() {
+        executor.shutdownNow();
+    }
+}
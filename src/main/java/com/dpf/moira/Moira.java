@@ -1,57 +1,401 @@
 package com.dpf.moira;
 
-import com.dpf.moira.entity.DecisionNodeResult;
+import com.dpf.moira.cache.CacheStats;
+import com.dpf.moira.entity.Fork;
 import com.dpf.moira.entity.NodeId;
 import com.dpf.moira.entity.Workflow;
 import com.dpf.moira.entity.WorkflowId;
+import com.dpf.moira.id.ExecutionIdGenerator;
+import com.dpf.moira.id.ExecutionIdGenerators;
+import com.dpf.moira.metrics.InMemoryMoiraMetrics;
+import com.dpf.moira.metrics.MoiraMetrics;
+import com.dpf.moira.properties.ExecutionMode;
 import com.dpf.moira.properties.MoiraProperties;
 import com.dpf.moira.properties.PropertiesLoader;
+import com.dpf.moira.properties.TraceLevel;
+import com.dpf.moira.properties.ValidationMode;
+import com.dpf.moira.source.WorkflowSource;
+import com.dpf.moira.source.WorkflowSources;
+import com.dpf.moira.yaml.WorkFlowYml;
 import com.dpf.moira.yaml.mapper.WorkFlowYmlMapper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import reactor.core.CoreSubscriber;
+import reactor.core.Exceptions;
+import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
+import reactor.core.publisher.Operators;
+import reactor.core.scheduler.Scheduler;
 import reactor.core.scheduler.Schedulers;
 
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.UUID;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.ServiceLoader;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 /**
  * Executes workflows.
+ * <p>
+ * When hot reload is enabled the workflow files are checked on a background thread, so {@link #close()} should be
+ * called once the instance is no longer needed.
  */
-public final class Moira {
+public final class Moira implements AutoCloseable {
 
     private static final Logger logger = LoggerFactory.getLogger(Moira.class);
 
     private static final String PROPERTIES_FILE = "moira.properties";
 
+    private static final int END = -1;
+
     private final MoiraProperties properties;
 
-    private WorkFlowRegistry workFlowRegistry;
+    private volatile WorkFlowRegistry workFlowRegistry;
 
     private final NodeRegistry nodeRegistry;
 
     private final ResourceLoader resourceLoader;
 
-    private final boolean isHotReload;
+    private final HotReloadWatcher hotReloadWatcher;
+
+    private final ExecutionMode executionMode;
+
+    private final ValidationMode validationMode;
+
+    private final TraceLevel traceLevel;
+
+    private final ExecutionIdGenerator executionIdGenerator;
+
+    private final int batchParallelism;
+
+    private final int maxHops;
+
+    private final MoiraMetrics metrics;
+
+    private final boolean metricsEnabled;
+
+    private final Scheduler scheduler;
+
+    private final boolean ownsScheduler;
+
+    private final WorkflowResultCache resultCache;
+
+    private final TraceBuffer traceBuffer;
+
+    private final Set<String> generatedWorkflows;
+
+    private final GeneratedWorkflow.Steps generatedSteps = new GeneratedSteps();
 
     public Moira(Collection<Node<?, ?>> nodes) {
+        this(nodes, null);
+    }
+
+    /**
+     * Creates an instance that reports execution metrics to the given sink.
+     *
+     * @param nodes   the decision nodes
+     * @param metrics the metrics sink, or {@code null} to configure it through {@code metricsEnabled}
+     */
+    public Moira(Collection<Node<?, ?>> nodes, MoiraMetrics metrics) {
+        this(nodes, new PropertiesLoader(PROPERTIES_FILE).loadProperties(MoiraProperties.class), metrics);
+    }
+
+    /**
+     * Creates an instance that runs asynchronous and batch executions on the given scheduler instead of the one
+     * configured through {@code scheduler}. An {@link java.util.concurrent.Executor} can be adapted with
+     * {@link Schedulers#fromExecutor}.
+     *
+     * @param nodes     the decision nodes
+     * @param metrics   the metrics sink, or {@code null} to configure it through {@code metricsEnabled}
+     * @param scheduler the scheduler, which is not disposed by {@link #close()}
+     */
+    public Moira(Collection<Node<?, ?>> nodes, MoiraMetrics metrics, Scheduler scheduler) {
+        this(nodes, new PropertiesLoader(PROPERTIES_FILE).loadProperties(MoiraProperties.class), metrics, scheduler);
+    }
+
+    /**
+     * Creates an instance that reads the workflows from the given source instead of the one configured through
+     * {@code workflowSource}.
+     *
+     * @param nodes     the decision nodes
+     * @param metrics   the metrics sink, or {@code null} to configure it through {@code metricsEnabled}
+     * @param scheduler the scheduler, or {@code null} to configure it through {@code scheduler}
+     * @param source    the source of the workflows
+     * @throws IllegalArgumentException when {@code hotReloadMode} is enabled, since hot reload reads the files of
+     *                                  {@code workflowFilesPath}
+     */
+    public Moira(Collection<Node<?, ?>> nodes, MoiraMetrics metrics, Scheduler scheduler, WorkflowSource source) {
+        this(nodes, new PropertiesLoader(PROPERTIES_FILE).loadProperties(MoiraProperties.class), metrics, scheduler,
+                source);
+    }
+
+    Moira(Collection<Node<?, ?>> nodes, MoiraProperties properties, MoiraMetrics metrics) {
+        this(nodes, properties, metrics, null);
+    }
+
+    Moira(Collection<Node<?, ?>> nodes, MoiraProperties properties, MoiraMetrics metrics, Scheduler scheduler) {
+        this(nodes, properties, metrics, scheduler, null);
+    }
+
+    Moira(Collection<Node<?, ?>> nodes, MoiraProperties properties, MoiraMetrics metrics, Scheduler scheduler,
+          WorkflowSource source) {
 
-        this.properties = new PropertiesLoader(PROPERTIES_FILE).loadProperties(MoiraProperties.class);
+        this.properties = properties;
         this.resourceLoader = new ResourceLoader();
-        this.nodeRegistry = new NodeRegistry(nodes);
-        this.workFlowRegistry = getWorkFlowRegistry();
-        this.isHotReload = properties.isHotReloadMode();
+        this.nodeRegistry = new NodeRegistry(nodes, NodeLimits.of(properties));
+        this.validationMode = properties.getValidationMode();
+        this.workFlowRegistry = getWorkFlowRegistry(source);
+        this.executionMode = properties.getExecutionMode();
+        this.traceLevel = properties.getTraceLevel();
+        this.executionIdGenerator = ExecutionIdGenerators.fromName(
+                properties.getExecutionIdGenerator(), properties.getExecutionIdPrefix());
+        this.batchParallelism = properties.getBatchParallelism();
+        this.maxHops = properties.getMaxHops();
+        this.metrics = metrics != null ? metrics : loadMetrics(properties);
+        this.metricsEnabled = !this.metrics.isNoop();
+        this.scheduler = scheduler != null ? scheduler : SchedulerFactory.create(properties.getScheduler());
+        this.ownsScheduler = scheduler == null && !SchedulerFactory.isShared(this.scheduler);
+        this.resultCache = new WorkflowResultCache(
+                properties.getWorkflowCacheSize(), properties.getWorkflowCacheTtlMillis());
+        this.traceBuffer = properties.getTraceBufferSize() > 0 ? new TraceBuffer(properties.getTraceBufferSize()) : null;
+        this.generatedWorkflows = properties.getGeneratedWorkflows() == null ? Set.of()
+                : Arrays.stream(properties.getGeneratedWorkflows().split(","))
+                .map(String::trim)
+                .filter(id -> !id.isEmpty())
+                .collect(Collectors.toUnmodifiableSet());
+        this.hotReloadWatcher = properties.isHotReloadMode()
+                ? new HotReloadWatcher(this::reloadWorkFlowRegistry, properties.getHotReloadIntervalMillis())
+                : null;
     }
 
-    private WorkFlowRegistry getWorkFlowRegistry() {
-        String location = this.properties.getWorkflowFilesPath();
-        List<Workflow> workflows = resourceLoader.loadWorkflows(location).stream()
+    private static MoiraMetrics loadMetrics(MoiraProperties properties) {
+        if (!properties.isMetricsEnabled()) {
+            return MoiraMetrics.noop();
+        }
+        return ServiceLoader.load(MoiraMetrics.class).findFirst()
+                .orElseGet(InMemoryMoiraMetrics::new);
+    }
+
+    /**
+     * Registers a node at runtime, replacing the node registered with the same ID and scenario class, if any.
+     * Executions already running keep the nodes they started with, the next ones use the new node.
+     */
+    public void registerNode(Node<?, ?> node) {
+        nodeRegistry.register(node);
+        resultCache.invalidateAll();
+        logger.info("Registered node {} for {}", nodeRegistry.getMetadata(node).getId(), node.getScenarioClass().getName());
+    }
+
+    /**
+     * Unregisters a node at runtime. Executions already running may still invoke it.
+     *
+     * @return whether the node was registered
+     */
+    public boolean unregisterNode(Node<?, ?> node) {
+        if (!nodeRegistry.unregister(node)) {
+            return false;
+        }
+        resultCache.invalidateAll();
+        logger.info("Unregistered node {}", node.getClass().getName());
+        return true;
+    }
+
+    /**
+     * @return the statistics of the result cache of every {@link Decision#cacheable() cacheable} node, by node ID
+     */
+    public Map<String, CacheStats> getNodeCacheStats() {
+        return nodeRegistry.getCacheStats();
+    }
+
+    /**
+     * @return the statistics of the cache of workflow outcomes, shared by every workflow declaring a {@code cacheKey}
+     */
+    public CacheStats getWorkflowCacheStats() {
+        return resultCache.getStats();
+    }
+
+    /**
+     * @return the traces of the most recent executions, oldest first, or an empty list unless {@code traceBufferSize}
+     * is set
+     */
+    public List<ExecutionTrace> getRecentTraces() {
+        return traceBuffer != null ? traceBuffer.snapshot() : List.of();
+    }
+
+    /**
+     * @return the sink receiving the execution metrics
+     */
+    public MoiraMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Loads the workflows from the given source, or else from the precompiled index when there is one, or else from
+     * the configured source. With {@code lazyLoading} a source loads each workflow the first time it is used. Hot
+     * reload always reads the files, since they are what it watches.
+     *
+     * @throws IllegalArgumentException when a source is given with {@code hotReloadMode} enabled
+     */
+    private WorkFlowRegistry getWorkFlowRegistry(WorkflowSource source) {
+        if (properties.isHotReloadMode()) {
+            if (source != null) {
+                throw new IllegalArgumentException(String.format(
+                        "Cannot read workflows from %s with hotReloadMode, which reads the files of %s",
+                        source.getClass().getName(),
+                        properties.getWorkflowFilesPath()));
+            }
+            return new WorkFlowRegistry(
+                    validate(toEntities(resourceLoader.loadWorkflows(properties.getWorkflowFilesPath()))), nodeRegistry);
+        }
+        if (source == null) {
+            Optional<List<WorkFlowYml>> index = WorkflowIndex.load(properties.getWorkflowIndexPath());
+            if (index.isPresent()) {
+                logger.info("Loaded {} workflows from index {}", index.get().size(), properties.getWorkflowIndexPath());
+                return new WorkFlowRegistry(validate(toEntities(index.get())), nodeRegistry);
+            }
+            source = WorkflowSources.fromName(properties.getWorkflowSource(), properties.getWorkflowFilesPath());
+        }
+        if (properties.isLazyLoading()) {
+            WorkflowSource lazySource = source;
+            Function<WorkflowId, Optional<Workflow>> lookup = workflowId -> lazySource.load(workflowId.getValue())
+                    .map(WorkFlowYmlMapper::toEntity);
+            return new WorkFlowRegistry(List.of(), nodeRegistry,
+                    workflowId -> lookup.apply(workflowId)
+                            .map(workflow -> validate(List.of(workflow), lookup).get(0)));
+        }
+        return new WorkFlowRegistry(validate(toEntities(source.loadAll())), nodeRegistry);
+    }
+
+    private List<Workflow> validate(List<Workflow> workflows) {
+        Map<WorkflowId, Workflow> workflowsById = new HashMap<>();
+        workflows.forEach(workflow -> workflowsById.put(workflow.getId(), workflow));
+        return validate(workflows, workflowId -> Optional.ofNullable(workflowsById.get(workflowId)));
+    }
+
+    /**
+     * Checks the workflows against the registered nodes, logging the problems found or failing with them depending
+     * on {@code validationMode}.
+     *
+     * @param lookup finds the workflows called by the workflows, which are validated with them inlined
+     * @return the workflows
+     * @throws IllegalStateException when a workflow is invalid and {@code validationMode} is {@code FAIL}
+     */
+    private List<Workflow> validate(List<Workflow> workflows, Function<WorkflowId, Optional<Workflow>> lookup) {
+        if (validationMode == ValidationMode.OFF) {
+            return workflows;
+        }
+        List<String> problems = new ArrayList<>();
+        for (Workflow workflow : workflows) {
+            Workflow inlined;
+            try {
+                inlined = WorkflowInliner.inline(workflow, lookup);
+            } catch (IllegalArgumentException e) {
+                problems.add(e.getMessage());
+                continue;
+            }
+            problems.addAll(WorkflowValidator.validate(workflow, inlined, nodeRegistry));
+        }
+        if (problems.isEmpty()) {
+            return workflows;
+        }
+        String message = "Invalid workflows:" + System.lineSeparator() + "  "
+                + String.join(System.lineSeparator() + "  ", problems);
+        if (validationMode == ValidationMode.FAIL) {
+            throw new IllegalStateException(message);
+        }
+        logger.warn(message);
+        return workflows;
+    }
+
+    private static List<Workflow> toEntities(List<WorkFlowYml> workflowYmls) {
+        return workflowYmls.stream()
                 .map(WorkFlowYmlMapper::toEntity)
                 .collect(Collectors.toList());
-        return new WorkFlowRegistry(workflows);
+    }
+
+    /**
+     * Rebuilds the changed workflows and publishes a new registry. Executions already running keep the registry they
+     * started with. A changed workflow that is invalid or cannot be compiled keeps its previous version and is read
+     * again by the next reload, while the other changes are published.
+     */
+    private void reloadWorkFlowRegistry() {
+        String location = this.properties.getWorkflowFilesPath();
+        ResourceLoader.Changes changes = resourceLoader.reloadWorkflows(location);
+        changes.getFailed().forEach(failed -> logger.error("Keeping previous version of workflow file {}", failed));
+        if (changes.isEmpty()) {
+            resourceLoader.accept(changes, Set.of());
+            return;
+        }
+        Set<WorkflowId> rejected = new HashSet<>();
+        List<Workflow> changedWorkflows = new ArrayList<>();
+        for (WorkFlowYml yml : changes.getChanged()) {
+            try {
+                changedWorkflows.add(WorkFlowYmlMapper.toEntity(yml));
+            } catch (IllegalArgumentException e) {
+                logger.error("Keeping previous version of workflow {}: {}", yml.getId(), e.getMessage());
+                rejected.add(new WorkflowId(yml.getId()));
+            }
+        }
+        List<WorkflowId> removed = changes.getRemoved().stream()
+                .map(WorkflowId::new)
+                .collect(Collectors.toList());
+        Map<WorkflowId, Workflow> changedById = new HashMap<>();
+        changedWorkflows.forEach(workflow -> changedById.put(workflow.getId(), workflow));
+        WorkFlowRegistry registry = this.workFlowRegistry;
+        Function<WorkflowId, Optional<Workflow>> lookup = workflowId -> changedById.containsKey(workflowId)
+                ? Optional.of(changedById.get(workflowId))
+                : removed.contains(workflowId) ? Optional.empty() : registry.get(workflowId);
+        List<Workflow> valid = new ArrayList<>();
+        for (Workflow workflow : changedWorkflows) {
+            try {
+                validate(List.of(workflow), lookup);
+                valid.add(workflow);
+            } catch (IllegalStateException e) {
+                logger.error("Keeping previous version of workflow {}: {}", workflow.getId().getValue(),
+                        e.getMessage());
+                rejected.add(workflow.getId());
+            }
+        }
+        this.workFlowRegistry = registry.update(valid, removed, rejected);
+        resourceLoader.accept(changes, rejected.stream().map(WorkflowId::getValue).collect(Collectors.toSet()));
+
+        List<WorkflowId> invalidated = new ArrayList<>(removed);
+        List<String> published = new ArrayList<>();
+        valid.stream()
+                .filter(workflow -> !rejected.contains(workflow.getId()))
+                .forEach(workflow -> {
+                    invalidated.add(workflow.getId());
+                    published.add(workflow.getId().getValue());
+                });
+        resultCache.invalidate(invalidated);
+        logger.info("Reloaded workflows, changed: {}, removed: {}", published, changes.getRemoved());
+    }
+
+    /**
+     * Stops watching the workflow files for changes and disposes the scheduler, unless it was supplied by the caller
+     * or is shared by Reactor.
+     */
+    @Override
+    public void close() {
+        if (hotReloadWatcher != null) {
+            hotReloadWatcher.close();
+        }
+        if (ownsScheduler) {
+            scheduler.dispose();
+        }
     }
 
     /**
@@ -61,8 +405,20 @@ public final class Moira {
      * @param scenario the scenario to be passed to the decision nodes
      */
     public <S> void decideAsync(String workflow, S scenario) {
-        executeWorkflow(workflow, scenario)
-                .subscribeOn(Schedulers.boundedElastic())
+        decideAsync(workflow, scenario, null);
+    }
+
+    /**
+     * Starts the execution of the workflow asynchronously under the given execution ID, for example an existing
+     * trace ID.
+     *
+     * @param workflow    the ID of the workflow to execute
+     * @param scenario    the scenario to be passed to the decision nodes
+     * @param executionId the ID of the execution, or {@code null} to generate one
+     */
+    public <S> void decideAsync(String workflow, S scenario, String executionId) {
+        executeWorkflow(workflow, scenario, executionId)
+                .subscribeOn(scheduler)
                 .doOnError(error -> logger.error("Error occurred while executing workflow {}", workflow, error))
                 .subscribe();
     }
@@ -75,93 +431,1355 @@ public final class Moira {
      * @return a Mono that completes when the execution of the workflow is finished
      */
     public <S> Mono<Void> decide(String workflow, S scenario) {
-        return executeWorkflow(workflow, scenario);
+        return decide(workflow, scenario, null);
     }
 
     /**
-     * Executes the workflow starting with the specified ID and scenario.
+     * Starts the execution of the workflow under the given execution ID, for example an existing trace ID, and
+     * returns a Mono indicating completion.
+     *
+     * @param workflow    the ID of the workflow to execute
+     * @param scenario    the scenario to be passed to the decision nodes
+     * @param executionId the ID of the execution, or {@code null} to generate one
+     * @return a Mono that completes when the execution of the workflow is finished
+     */
+    public <S> Mono<Void> decide(String workflow, S scenario, String executionId) {
+        return executeWorkflow(workflow, scenario, executionId);
+    }
+
+    /**
+     * Starts the execution of the workflow and returns a Mono emitting how it ended.
+     *
+     * @param workflow the ID of the workflow to execute
+     * @param scenario the scenario to be passed to the decision nodes
+     * @return a Mono emitting the terminal node and its result once the execution is finished
+     */
+    public <S> Mono<Outcome> decideOutcome(String workflow, S scenario) {
+        return decideOutcome(workflow, scenario, null);
+    }
+
+    /**
+     * Starts the execution of the workflow under the given execution ID and returns a Mono emitting how it ended.
+     *
+     * @param workflow    the ID of the workflow to execute
+     * @param scenario    the scenario to be passed to the decision nodes
+     * @param executionId the ID of the execution, or {@code null} to generate one
+     * @return a Mono emitting the terminal node and its result once the execution is finished
+     */
+    public <S> Mono<Outcome> decideOutcome(String workflow, S scenario, String executionId) {
+        return executeWorkflow(workflow, scenario, executionId, false).map(Cursor::toOutcome);
+    }
+
+    /**
+     * Starts the execution of the workflow and returns a Mono emitting the path it took.
+     *
+     * @param workflow the ID of the workflow to execute
+     * @param scenario the scenario to be passed to the decision nodes
+     * @return a Mono emitting the trace of the execution once it is finished
+     */
+    public <S> Mono<ExecutionTrace> decideTraced(String workflow, S scenario) {
+        return decideTraced(workflow, scenario, null);
+    }
+
+    /**
+     * Starts the execution of the workflow under the given execution ID and returns a Mono emitting the path it took.
+     *
+     * @param workflow    the ID of the workflow to execute
+     * @param scenario    the scenario to be passed to the decision nodes
+     * @param executionId the ID of the execution, or {@code null} to generate one
+     * @return a Mono emitting the trace of the execution once it is finished
+     */
+    public <S> Mono<ExecutionTrace> decideTraced(String workflow, S scenario, String executionId) {
+        return executeWorkflow(workflow, scenario, executionId, true).map(cursor -> cursor.trace);
+    }
+
+    /**
+     * Executes the workflow on the calling thread, without Reactor, and returns once it is finished.
+     *
+     * @param workflow the ID of the workflow to execute
+     * @param scenario the scenario to be passed to the decision nodes
+     */
+    public <S> void decideSync(String workflow, S scenario) {
+        decideSync(workflow, scenario, null);
+    }
+
+    /**
+     * Executes the workflow on the calling thread under the given execution ID, for example an existing trace ID,
+     * and returns once it is finished.
+     *
+     * @param workflow    the ID of the workflow to execute
+     * @param scenario    the scenario to be passed to the decision nodes
+     * @param executionId the ID of the execution, or {@code null} to generate one
+     */
+    public <S> void decideSync(String workflow, S scenario, String executionId) {
+        ExecutionPlan plan = getExecutionPlan(workflow, scenario);
+        executeSync(plan, newScenario(plan, scenario, executionId), false);
+    }
+
+    /**
+     * Executes the workflow on the calling thread, without Reactor, and returns how it ended.
+     *
+     * @param workflow the ID of the workflow to execute
+     * @param scenario the scenario to be passed to the decision nodes
+     * @return the terminal node and its result
+     */
+    public <S> Outcome decideSyncOutcome(String workflow, S scenario) {
+        return decideSyncOutcome(workflow, scenario, null);
+    }
+
+    /**
+     * Executes the workflow on the calling thread under the given execution ID and returns how it ended.
+     *
+     * @param workflow    the ID of the workflow to execute
+     * @param scenario    the scenario to be passed to the decision nodes
+     * @param executionId the ID of the execution, or {@code null} to generate one
+     * @return the terminal node and its result
+     */
+    public <S> Outcome decideSyncOutcome(String workflow, S scenario, String executionId) {
+        ExecutionPlan plan = getExecutionPlan(workflow, scenario);
+        return executeSync(plan, newScenario(plan, scenario, executionId), false).toOutcome();
+    }
+
+    /**
+     * Executes the workflow on the calling thread, without Reactor, and returns the path it took.
      *
      * @param workflow the ID of the workflow to execute
      * @param scenario the scenario to be passed to the decision nodes
+     * @return the trace of the execution
+     */
+    public <S> ExecutionTrace decideSyncTraced(String workflow, S scenario) {
+        return decideSyncTraced(workflow, scenario, null);
+    }
+
+    /**
+     * Executes the workflow on the calling thread under the given execution ID and returns the path it took.
+     *
+     * @param workflow    the ID of the workflow to execute
+     * @param scenario    the scenario to be passed to the decision nodes
+     * @param executionId the ID of the execution, or {@code null} to generate one
+     * @return the trace of the execution
+     */
+    public <S> ExecutionTrace decideSyncTraced(String workflow, S scenario, String executionId) {
+        ExecutionPlan plan = getExecutionPlan(workflow, scenario);
+        return executeSync(plan, newScenario(plan, scenario, executionId), true).trace;
+    }
+
+    /**
+     * Executes the workflow starting with the specified ID and scenario.
+     *
+     * @param workflow    the ID of the workflow to execute
+     * @param scenario    the scenario to be passed to the decision nodes
+     * @param executionId the ID of the execution, or {@code null} to generate one
      * @return a Mono that completes when the execution of the workflow is finished
      */
-    private <C> Mono<Void> executeWorkflow(String workflow, C scenario) {
+    private <C> Mono<Void> executeWorkflow(String workflow, C scenario, String executionId) {
+        WorkFlowRegistry registry = this.workFlowRegistry;
+        ExecutionPlan plan = getExecutionPlan(workflow, scenario);
+        if (executionMode == ExecutionMode.SYNC && !plan.hasAsyncNodes() || generatedOf(plan) != null) {
+            return new SyncExecution<>(registry, plan, workflow, scenario, executionId, false, cursor -> null);
+        }
+        return Mono.defer(() -> {
+            ExecutionPlan current = currentPlan(registry, plan, workflow, scenario);
+            Scenario<C> executionScenario = newScenario(current, scenario, executionId);
+            if (current.getCacheKey() != null || traceBuffer != null) {
+                return measured(current, executeNodes(current, executionScenario, false)).then();
+            }
+            return measured(current, executeNodes(current, executionScenario));
+        });
+    }
+
+    /**
+     * Same as {@link #executeWorkflow(String, Object, String)}, keeping the final position of the execution.
+     *
+     * @param traced whether to trace the execution even when {@code traceBufferSize} is not set
+     * @return a Mono emitting the final position of the execution once it is finished
+     */
+    private <C> Mono<Cursor> executeWorkflow(String workflow, C scenario, String executionId, boolean traced) {
+        WorkFlowRegistry registry = this.workFlowRegistry;
+        ExecutionPlan plan = getExecutionPlan(workflow, scenario);
+        if (executionMode == ExecutionMode.SYNC && !plan.hasAsyncNodes() || !traced && generatedOf(plan) != null) {
+            return new SyncExecution<>(registry, plan, workflow, scenario, executionId, traced, Function.identity());
+        }
+        return Mono.defer(() -> {
+            ExecutionPlan current = currentPlan(registry, plan, workflow, scenario);
+            return measured(current, executeNodes(current, newScenario(current, scenario, executionId), traced));
+        });
+    }
+
+    /**
+     * Resolves the plan of an execution when it is subscribed, so every subscription starts with a new execution ID
+     * and deadline. The plan resolved when the execution was created is kept unless workflows were reloaded or nodes
+     * registered since.
+     */
+    private ExecutionPlan currentPlan(WorkFlowRegistry registry, ExecutionPlan plan, String workflow, Object scenario) {
+        WorkFlowRegistry current = this.workFlowRegistry;
+        if (current == registry && plan.getNodesVersion() == nodeRegistry.getVersion()) {
+            return plan;
+        }
+        return getExecutionPlan(current, workflow, scenario.getClass());
+    }
+
+    private <T> Mono<T> measured(ExecutionPlan plan, Mono<T> execution) {
+        if (!metricsEnabled) {
+            return execution;
+        }
+        String workflowId = plan.getWorkflow().getId().getValue();
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return execution
+                    .doOnSuccess(ignored -> metrics.recordWorkflow(workflowId, System.nanoTime() - start))
+                    .doOnError(error -> metrics.recordWorkflowError(workflowId, error, System.nanoTime() - start));
+        });
+    }
+
+    /**
+     * Executes the workflow over every scenario of the collection, with at most {@code batchParallelism} scenarios
+     * running at the same time.
+     *
+     * @param workflow  the ID of the workflow to execute
+     * @param scenarios the scenarios to be passed to the decision nodes
+     * @return a Mono emitting the result of every scenario once all of them are finished
+     */
+    public <S> Mono<BatchResult<S>> decideAll(String workflow, Collection<S> scenarios) {
+        return decideAll(workflow, scenarios, batchParallelism);
+    }
+
+    /**
+     * Executes the workflow over every scenario of the collection, with at most {@code parallelism} scenarios
+     * running at the same time.
+     *
+     * @param workflow    the ID of the workflow to execute
+     * @param scenarios   the scenarios to be passed to the decision nodes
+     * @param parallelism the maximum number of scenarios executed concurrently
+     * @return a Mono emitting the result of every scenario once all of them are finished
+     */
+    public <S> Mono<BatchResult<S>> decideAll(String workflow, Collection<S> scenarios, int parallelism) {
+        if (scenarios == null) {
+            throw new IllegalArgumentException("scenarios cannot be null");
+        }
+        return decideAll(workflow, Flux.fromIterable(scenarios), parallelism)
+                .collectList()
+                .map(BatchResult::new);
+    }
+
+    /**
+     * Executes the workflow over every scenario emitted by the Flux, with at most {@code batchParallelism}
+     * scenarios running at the same time. Scenarios are requested from upstream as executions finish.
+     *
+     * @param workflow  the ID of the workflow to execute
+     * @param scenarios the scenarios to be passed to the decision nodes
+     * @return a Flux emitting the result of every scenario, in completion order
+     */
+    public <S> Flux<DecisionResult<S>> decideAll(String workflow, Flux<S> scenarios) {
+        return decideAll(workflow, scenarios, batchParallelism);
+    }
+
+    /**
+     * Executes the workflow over every scenario emitted by the Flux, with at most {@code parallelism} scenarios
+     * running at the same time. Scenarios are requested from upstream as executions finish.
+     * Executions of workflows with limited nodes wait for the limits without holding a thread of the scheduler.
+     *
+     * @param workflow    the ID of the workflow to execute
+     * @param scenarios   the scenarios to be passed to the decision nodes
+     * @param parallelism the maximum number of scenarios executed concurrently
+     * @return a Flux emitting the result of every scenario, in completion order
+     */
+    public <S> Flux<DecisionResult<S>> decideAll(String workflow, Flux<S> scenarios, int parallelism) {
+        if (workflow == null) {
+            throw new IllegalArgumentException("workflow cannot be null");
+        }
+        if (scenarios == null) {
+            throw new IllegalArgumentException("scenarios cannot be null");
+        }
+        if (parallelism < 1) {
+            throw new IllegalArgumentException("parallelism must be greater than zero");
+        }
+
+        WorkFlowRegistry registry = this.workFlowRegistry;
+        WorkflowId workflowId = new WorkflowId(workflow);
+        if (registry.get(workflowId).isEmpty()) {
+            throw new IllegalArgumentException(String.format("Workflow '%s' not found", workflow));
+        }
+
+        Map<Class<?>, ExecutionPlan> plans = new ConcurrentHashMap<>();
+        return scenarios.flatMap(scenario -> Mono.defer(() -> {
+                            ExecutionPlan plan = plans.computeIfAbsent(scenario.getClass(),
+                                    scenarioClass -> getExecutionPlan(registry, workflow, scenarioClass));
+                            Scenario<S> executionScenario = newScenario(plan, scenario, null);
+                            if (plan.hasAsyncNodes()) {
+                                return measured(plan, executeNodes(plan, executionScenario, false));
+                            }
+                            return Mono.fromCallable(() -> executeSync(plan, executionScenario, false));
+                        })
+                        .map(cursor -> DecisionResult.success(scenario, cursor.toOutcome()))
+                        .onErrorResume(error -> {
+                            logger.error("Error occurred while executing workflow {}", workflow, error);
+                            return Mono.just(DecisionResult.failure(scenario, error));
+                        })
+                        .subscribeOn(scheduler),
+                parallelism);
+    }
+
+    private <C> ExecutionPlan getExecutionPlan(String workflow, C scenario) {
         if (workflow == null) {
             throw new IllegalArgumentException("workflow cannot be null");
         }
         if (scenario == null) {
             throw new IllegalArgumentException("scenario cannot be null");
         }
-        if (isHotReload) {
-            this.workFlowRegistry = this.getWorkFlowRegistry();
-        }
+        return getExecutionPlan(this.workFlowRegistry, workflow, scenario.getClass());
+    }
 
-        Workflow decisionTree = workFlowRegistry.get(new WorkflowId(workflow))
+    private ExecutionPlan getExecutionPlan(WorkFlowRegistry registry, String workflow, Class<?> scenarioClass) {
+        ExecutionPlan plan = registry.getPlan(new WorkflowId(workflow), scenarioClass)
                 .orElseThrow(() -> new IllegalArgumentException(
                         String.format("Workflow '%s' not found for scenario: %s",
                                 workflow,
-                                scenario.getClass().getName())
+                                scenarioClass.getName())
                 ));
-
-        String executionId = generateExecutionId();
-
-        logger.debug("[{}] Starting execution of {}", executionId, workflow);
-        return executeNode(decisionTree.getStart(), decisionTree, new Scenario<>(executionId, scenario));
+        if (plan.getStart() < 0) {
+            throw new IllegalArgumentException(String.format("Start node '%s' is not declared in workflow '%s'",
+                    plan.getWorkflow().getStart().getValue(), workflow));
+        }
+        return plan;
     }
 
-    private static String generateExecutionId() {
-        return UUID.randomUUID().toString();
+    private <C> Scenario<C> newScenario(ExecutionPlan plan, C scenario, String executionId) {
+        String id = executionId != null ? executionId : executionIdGenerator.generate();
+        if (isTracing()) {
+            logger.debug("[{}] Starting execution of {}", id, plan.getWorkflow().getId().getValue());
+        }
+        return Scenario.of(id, scenario, plan.getTimeout());
     }
 
-    @SuppressWarnings("unchecked")
-    private <S> Mono<Void> executeNode(NodeId nodeId, Workflow workFlow, Scenario<S> scenario) {
-        return Mono.defer(() -> {
-            Node<S, ?> node = (Node<S, ?>) nodeRegistry.get(nodeId, scenario.get().getClass())
-                    .orElseThrow(() -> new IllegalArgumentException(
-                            String.format("Node not found: %s for scenario: %s",
-                                    nodeId.getValue(),
-                                    scenario.getClass().getName())));
-
-            String nodeIdValue = this.getNodeId(node);
-            String nodeDescription = this.getNodeDescription(node);
-
-            logger.debug("[{}] Executing <{}> ({}) with scenario: {}", scenario.getExecutionId(), nodeIdValue, nodeDescription, scenario.get());
-
-            Enum<?> result = node.execute(scenario);
+    private <S> Cursor executeSync(ExecutionPlan plan, Scenario<S> scenario, boolean traced) {
+        return executeSync(plan, scenario, newCursor(plan, scenario, traced));
+    }
 
-            Map<DecisionNodeResult, NodeId> nodeTransitions = workFlow.getTransitionsByNode().get(nodeId).getTransitions();
-            if (nodeTransitions.isEmpty()) {
-                logger.debug("[{}] <{}> has ended execution successfully with scenario: {}", scenario.getExecutionId(), nodeIdValue, scenario.get());
-                return Mono.empty();
+    private <S> Cursor executeSync(ExecutionPlan plan, Scenario<S> scenario, Cursor cursor) {
+        long start = metricsEnabled ? System.nanoTime() : 0;
+        try {
+            walk(plan, scenario, cursor);
+        } catch (RuntimeException e) {
+            if (metricsEnabled) {
+                metrics.recordWorkflowError(plan.getWorkflow().getId().getValue(), e, System.nanoTime() - start);
             }
+            finish(cursor, plan, scenario, e);
+            throw e;
+        }
+        if (metricsEnabled) {
+            metrics.recordWorkflow(plan.getWorkflow().getId().getValue(), System.nanoTime() - start);
+        }
+        finish(cursor, plan, scenario, null);
+        return cursor;
+    }
 
-            logger.debug("[{}] <{}> decided result: {}", scenario.getExecutionId(), nodeIdValue, result);
-
-            NodeId nextNodeId = nodeTransitions.get(new DecisionNodeResult(result.name()));
-            if (nextNodeId == null) {
-                logger.error("[{}] No transition found for result: {}. Ending execution with error.", scenario.getExecutionId(), result);
-                throw new RuntimeException(String.format("No transition found for result %s in %s during execution %s", result, nodeIdValue, scenario.getExecutionId()));
-            }
+    private <S> void walk(ExecutionPlan plan, Scenario<S> scenario, Cursor cursor) {
+        if (replayCached(cursor, scenario)) {
+            return;
+        }
+        run(plan, scenario, cursor);
+        storeCached(cursor, plan);
+    }
 
-            logger.debug("[{}] Transitioning to next node: <{}>", scenario.getExecutionId(), nextNodeId.getValue());
-            return executeNode(nextNodeId, workFlow, scenario);
-        });
+    private <S> void run(ExecutionPlan plan, Scenario<S> scenario, Cursor cursor) {
+        GeneratedWorkflow generated = cursor.timed || cursor.branch ? null : generatedOf(plan);
+        if (generated != null) {
+            generated.run(scenario, cursor);
+            return;
+        }
+        while (cursor.slot != END) {
+            checkCancelled(cursor, plan, scenario);
+            startHop(cursor, plan, scenario);
+            executeStep(cursor, plan, scenario);
+        }
     }
 
-    private String getNodeId(Node<?, ?> node) {
-        Class<?> nodeClass = node.getClass();
-        Decision decision = nodeClass.getAnnotation(Decision.class);
-        return (decision != null)
-                ? decision.id()
-                : nodeClass.getSimpleName();
+    private <S> void checkCancelled(Cursor cursor, ExecutionPlan plan, Scenario<S> scenario) {
+        if (cursor.isCancelled()) {
+            throw new CancellationException(String.format("Execution %s of workflow %s was cancelled",
+                    scenario.getExecutionId(), plan.getWorkflow().getId().getValue()));
+        }
     }
 
-    private String getNodeDescription(Node<?, ?> node) {
-        Class<?> nodeClass = node.getClass();
-        Decision decision = nodeClass.getAnnotation(Decision.class);
-        return (decision != null && !decision.description().isBlank())
-                ? decision.description()
-                : getNodeId(node);
+    /**
+     * Returns the generated code of the plan when its workflow is listed in {@code generatedWorkflows}. Executions
+     * with metrics or tracing are always interpreted.
+     *
+     * @return the generated code, or {@code null} to interpret the execution
+     */
+    private GeneratedWorkflow generatedOf(ExecutionPlan plan) {
+        if (generatedWorkflows.isEmpty() || metricsEnabled || isTracing()) {
+            return null;
+        }
+        return plan.getGenerated(this::generate);
+    }
+
+    private GeneratedWorkflow generate(ExecutionPlan plan) {
+        String workflowId = plan.getWorkflow().getId().getValue();
+        if (!generatedWorkflows.contains(workflowId) && !generatedWorkflows.contains("*")) {
+            return null;
+        }
+        if (!WorkflowGenerator.supports(plan)) {
+            logger.info("Interpreting workflow {}: forks, asynchronous, cacheable or limited nodes and timeouts are not generated", workflowId);
+            return null;
+        }
+        try {
+            GeneratedWorkflow generated = WorkflowGenerator.generate(plan, generatedSteps);
+            logger.info("Generated code for workflow {} and {}", workflowId, plan.getNode(plan.getStart()).getScenarioClass().getName());
+            return generated;
+        } catch (RuntimeException e) {
+            logger.warn("Interpreting workflow {}: {}", workflowId, e.getMessage(), e);
+            return null;
+        }
+    }
+
+    /**
+     * Creates the cursor of an execution, which records the path taken only when the outcome of the workflow is
+     * cached or the execution is traced.
+     */
+    private <S> Cursor newCursor(ExecutionPlan plan, Scenario<S> scenario, boolean traced) {
+        return new Cursor(plan, resultCache.key(plan, scenario.get()), traced || traceBuffer != null);
+    }
+
+    /**
+     * Skips the execution when the outcome of an identical scenario is cached.
+     *
+     * @return whether the cached outcome was used
+     */
+    private <S> boolean replayCached(Cursor cursor, Scenario<S> scenario) {
+        if (cursor.cacheKey == null) {
+            return false;
+        }
+        ExecutionRecord cached = resultCache.get(cursor.cacheKey);
+        if (cached == null) {
+            return false;
+        }
+        if (isTracing()) {
+            logger.debug("[{}] Reusing cached outcome: <{}> decided {} after {}", scenario.getExecutionId(),
+                    cached.getTerminalNode().getValue(), cached.getResult(), cached.getPath());
+        }
+        cursor.replay(cached);
+        return true;
+    }
+
+    /**
+     * Caches the outcome of the execution, unless it depends on a timeout or on the load of a limited node.
+     */
+    private void storeCached(Cursor cursor, ExecutionPlan plan) {
+        if (cursor.cacheKey != null && !cursor.timedOut && !cursor.overflowed) {
+            resultCache.put(cursor.cacheKey, cursor.toRecord());
+        }
+    }
+
+    /**
+     * Builds the trace of a traced execution once it is finished, and keeps it in the ring of recent traces.
+     */
+    private <S> void finish(Cursor cursor, ExecutionPlan plan, Scenario<S> scenario, Throwable error) {
+        if (!cursor.timed) {
+            return;
+        }
+        cursor.trace = cursor.toTrace(scenario.getExecutionId(), error);
+        if (traceBuffer != null) {
+            traceBuffer.add(cursor.trace);
+        }
+    }
+
+    /**
+     * Executes the workflow without recording the path taken.
+     */
+    private <S> Mono<Void> executeNodes(ExecutionPlan plan, Scenario<S> scenario) {
+        Callable<Cursor> start = () -> new Cursor(plan, null, false);
+        Flux<Cursor> hops = plan.hasAsyncNodes()
+                ? executeNodesAsync(plan, scenario, start)
+                : executeNodesSync(plan, scenario, start);
+        return hops.then();
+    }
+
+    /**
+     * Executes the workflow, reusing its cached outcome when there is one and tracing it when requested.
+     */
+    private <S> Mono<Cursor> executeNodes(ExecutionPlan plan, Scenario<S> scenario, boolean traced) {
+        return Mono.defer(() -> {
+            Cursor cursor = newCursor(plan, scenario, traced);
+            if (replayCached(cursor, scenario)) {
+                finish(cursor, plan, scenario, null);
+                return Mono.just(cursor);
+            }
+            Flux<Cursor> hops = plan.hasAsyncNodes()
+                    ? executeNodesAsync(plan, scenario, () -> cursor)
+                    : executeNodesSync(plan, scenario, () -> cursor);
+            Mono<Cursor> execution = hops.then(Mono.fromCallable(() -> {
+                storeCached(cursor, plan);
+                finish(cursor, plan, scenario, null);
+                return cursor;
+            }));
+            return cursor.timed
+                    ? execution.doOnError(error -> finish(cursor, plan, scenario, error))
+                    : execution;
+        });
+    }
+
+    /**
+     * Executes the workflow as a state machine emitting one signal per hop, so the stack and the memory used stay
+     * constant however many hops the execution takes, and cancellation is honoured between hops.
+     */
+    private <S> Flux<Cursor> executeNodesSync(ExecutionPlan plan, Scenario<S> scenario, Callable<Cursor> start) {
+        return Flux.generate(start, (cursor, sink) -> {
+            startHop(cursor, plan, scenario);
+            executeStep(cursor, plan, scenario);
+            if (cursor.slot == END) {
+                sink.complete();
+            } else {
+                sink.next(cursor);
+            }
+            return cursor;
+        });
+    }
+
+    /**
+     * Executes a workflow with asynchronous nodes. Synchronous nodes run in a loop until an asynchronous one is
+     * reached, whose result is awaited without blocking before the loop resumes. The loop is driven by a
+     * breadth-first {@code expand}, so the stack stays constant even when results are emitted synchronously.
+     */
+    private <S> Flux<Cursor> executeNodesAsync(ExecutionPlan plan, Scenario<S> scenario, Callable<Cursor> start) {
+        return Mono.fromCallable(start)
+                .expand(cursor -> {
+                    while (cursor.slot != END) {
+                        startHop(cursor, plan, scenario);
+                        if (plan.isAsync(cursor.slot)) {
+                            return executeAsyncStep(cursor, plan, scenario);
+                        }
+                        executeStep(cursor, plan, scenario);
+                    }
+                    return Mono.empty();
+                });
+    }
+
+    /**
+     * Counts the hop about to start, and moves the cursor to the timeout fallback of the workflow once the deadline
+     * of the execution has passed.
+     */
+    private <S> void startHop(Cursor cursor, ExecutionPlan plan, Scenario<S> scenario) {
+        checkHops(++cursor.hops, plan, scenario);
+        if (scenario.hasDeadline() && !cursor.pastDeadline && scenario.isExpired()) {
+            fallBack(cursor, ExecutionPlan.NO_TRANSITION, deadlineExceeded(plan, scenario), plan, scenario);
+        }
+    }
+
+    private <S> void checkHops(int hops, ExecutionPlan plan, Scenario<S> scenario) {
+        if (maxHops > 0 && hops > maxHops) {
+            logger.error("[{}] Execution exceeded {} hops. Ending execution with error.", scenario.getExecutionId(), maxHops);
+            throw new IllegalStateException(String.format("Execution %s of workflow %s exceeded the maximum of %d hops",
+                    scenario.getExecutionId(), plan.getWorkflow().getId().getValue(), maxHops));
+        }
+    }
+
+    /**
+     * Executes the node in the cursor slot and moves the cursor to the next one, or to {@link #END} when the executed
+     * node is terminal.
+     */
+    private <S> void executeStep(Cursor cursor, ExecutionPlan plan, Scenario<S> scenario) {
+        int slot = cursor.slot;
+        if (plan.isFork(slot)) {
+            executeForkSync(cursor, plan, scenario);
+            return;
+        }
+        Node<S, ?> node = startStep(slot, plan, scenario);
+        cursor.startTimer();
+
+        NodeCache cache = plan.getCache(slot);
+        Enum<?> result;
+        if (cache == null) {
+            result = invoke(cursor, node, plan, slot, scenario);
+        } else {
+            Object key = cache.key(scenario.get());
+            result = cache.get(key);
+            if (result == null) {
+                result = invoke(cursor, node, plan, slot, scenario);
+                if (result != TimedOut.TIMED_OUT && result != Limited.OVERFLOW) {
+                    cache.put(key, result);
+                }
+            }
+        }
+
+        if (result == TimedOut.TIMED_OUT) {
+            timedOut(cursor, slot, plan, scenario);
+            return;
+        }
+        if (result == Limited.OVERFLOW) {
+            overflowed(cursor, slot, plan, scenario);
+            return;
+        }
+        advance(cursor, slot, result, plan, scenario);
+    }
+
+    /**
+     * Executes the node once it is within its limits, parking the calling thread while waiting for them.
+     *
+     * @return the result of the node, {@link TimedOut#TIMED_OUT} when it timed out or the deadline passed while
+     * waiting, or {@link Limited#OVERFLOW} when it is over its limits and declares an overflow result
+     */
+    private <S> Enum<?> invoke(Cursor cursor, Node<S, ?> node, ExecutionPlan plan, int slot, Scenario<S> scenario) {
+        NodeLimiter limiter = plan.getLimiter(slot);
+        if (limiter == null) {
+            return invoke(node, plan, slot, scenario, interruptAfter(cursor, slot, plan, scenario));
+        }
+        if (!limiter.acquire(maxWaitOf(cursor, limiter, scenario))) {
+            return rejected(limiter);
+        }
+        try {
+            return invoke(node, plan, slot, scenario, interruptAfter(cursor, slot, plan, scenario));
+        } finally {
+            limiter.release();
+        }
+    }
+
+    /**
+     * @return how long an execution may wait for the limits of a node in nanoseconds: not at all when the node
+     * declares an overflow result, else until the deadline of the execution, if any
+     */
+    private <S> long maxWaitOf(Cursor cursor, NodeLimiter limiter, Scenario<S> scenario) {
+        if (limiter.getOverflow() != null) {
+            return 0;
+        }
+        if (scenario.hasDeadline() && !cursor.pastDeadline) {
+            return Math.max(scenario.getRemainingNanos(), 0);
+        }
+        return Long.MAX_VALUE;
+    }
+
+    /**
+     * @return what an execution that could not get within the limits of a node decides
+     */
+    private static Enum<?> rejected(NodeLimiter limiter) {
+        return limiter.getOverflow() != null ? Limited.OVERFLOW : TimedOut.TIMED_OUT;
+    }
+
+    /**
+     * Decides the overflow result of the node in the given slot, which is over its limits, and moves the cursor to
+     * the next node.
+     */
+    private <S> Cursor overflowed(Cursor cursor, int slot, ExecutionPlan plan, Scenario<S> scenario) {
+        Enum<?> overflow = plan.getLimiter(slot).getOverflow();
+        if (isTracing()) {
+            logger.debug("[{}] <{}> is over its limits, deciding {}", scenario.getExecutionId(), plan.getNodeId(slot).getValue(), overflow);
+        }
+        cursor.overflowed = true;
+        return advance(cursor, slot, overflow, plan, scenario);
+    }
+
+    /**
+     * @return how long the node in the given slot may run in nanoseconds, its own timeout bounded by the deadline of
+     * the execution, or {@code 0} when it is not bounded
+     */
+    private <S> long timeoutOf(Cursor cursor, int slot, ExecutionPlan plan, Scenario<S> scenario) {
+        long timeout = plan.getTimeout(slot);
+        if (scenario.hasDeadline() && !cursor.pastDeadline) {
+            long remaining = Math.max(scenario.getRemainingNanos(), 1);
+            timeout = timeout > 0 ? Math.min(timeout, remaining) : remaining;
+        }
+        return timeout;
+    }
+
+    /**
+     * @return how long the synchronous node in the given slot may run before it is interrupted in nanoseconds, or
+     * {@code 0} when it has no timeout of its own: the deadline of the execution is checked between hops instead, so
+     * nodes without a timeout run without a timer
+     */
+    private <S> long interruptAfter(Cursor cursor, int slot, ExecutionPlan plan, Scenario<S> scenario) {
+        return plan.getTimeout(slot) > 0 ? timeoutOf(cursor, slot, plan, scenario) : 0;
+    }
+
+    /**
+     * Executes the node, interrupting it once the timeout has elapsed.
+     *
+     * @param timeout the timeout in nanoseconds, or {@code 0} when the node is not bounded
+     * @return the result of the node, or {@link TimedOut#TIMED_OUT} when it timed out
+     */
+    private <S> Enum<?> invoke(Node<S, ?> node, ExecutionPlan plan, int slot, Scenario<S> scenario, long timeout) {
+        if (timeout == 0) {
+            return invoke(node, plan, slot, scenario);
+        }
+        Watchdog watchdog = new Watchdog(timeout);
+        Enum<?> result = null;
+        RuntimeException error = null;
+        boolean timedOut;
+        try {
+            result = invoke(node, plan, slot, scenario);
+        } catch (RuntimeException e) {
+            error = e;
+        } finally {
+            timedOut = watchdog.stop();
+        }
+        if (timedOut) {
+            return TimedOut.TIMED_OUT;
+        }
+        if (error != null) {
+            throw error;
+        }
+        return result;
+    }
+
+    private <S> Enum<?> invoke(Node<S, ?> node, ExecutionPlan plan, int slot, Scenario<S> scenario) {
+        return metricsEnabled
+                ? executeMeasured(node, plan, slot, scenario)
+                : node.execute(scenario);
+    }
+
+    /**
+     * Records that the node in the given slot timed out, without a result, and moves the cursor to its fallback.
+     */
+    private <S> Cursor timedOut(Cursor cursor, int slot, ExecutionPlan plan, Scenario<S> scenario) {
+        cursor.record(slot, null);
+        String message = scenario.isExpired() && !cursor.pastDeadline
+                ? String.format("%s at node %s", deadlineExceeded(plan, scenario), plan.getNodeId(slot).getValue())
+                : String.format("Node %s of workflow %s timed out after %d ms during execution %s",
+                plan.getNodeId(slot).getValue(), plan.getWorkflow().getId().getValue(),
+                TimeUnit.NANOSECONDS.toMillis(plan.getTimeout(slot)), scenario.getExecutionId());
+        fallBack(cursor, plan.getTimeoutFallback(slot), message, plan, scenario);
+        return cursor;
+    }
+
+    private <S> String deadlineExceeded(ExecutionPlan plan, Scenario<S> scenario) {
+        return String.format("Execution %s of workflow %s exceeded its timeout of %d ms", scenario.getExecutionId(),
+                plan.getWorkflow().getId().getValue(), plan.getWorkflow().getTimeoutMillis());
+    }
+
+    /**
+     * Moves the cursor to the fallback of a timeout: the {@code onTimeout} node of the node that timed out when it
+     * declares one, else the {@code onTimeout} node of the workflow, after which the deadline no longer applies.
+     * Branches of forks only follow the {@code onTimeout} of their own nodes, the fork falls back once joined.
+     *
+     * @param fallback the slot of the {@code onTimeout} node of the node that timed out, or
+     *                 {@link ExecutionPlan#NO_TRANSITION}
+     * @throws ExecutionTimeoutException when there is no fallback
+     */
+    private <S> void fallBack(Cursor cursor, int fallback, String message, ExecutionPlan plan, Scenario<S> scenario) {
+        boolean workflowFallback = fallback == ExecutionPlan.NO_TRANSITION && !cursor.branch;
+        if (workflowFallback) {
+            fallback = plan.getTimeoutFallback();
+        }
+        if (fallback == ExecutionPlan.NO_TRANSITION) {
+            logger.error("[{}] {}. Ending execution with error.", scenario.getExecutionId(), message);
+            throw new ExecutionTimeoutException(message);
+        }
+        if (fallback == ExecutionPlan.UNDECLARED_NODE) {
+            logger.error("[{}] {}. Timeout fallback is not declared in workflow. Ending execution with error.", scenario.getExecutionId(), message);
+            throw new RuntimeException(String.format("%s and its timeout fallback is not declared in workflow", message));
+        }
+        if (isTracing()) {
+            logger.debug("[{}] {}. Falling back to <{}>", scenario.getExecutionId(), message, plan.getNodeId(fallback).getValue());
+        }
+        cursor.timedOut = true;
+        cursor.pastDeadline |= workflowFallback;
+        cursor.slot = fallback;
+    }
+
+    /**
+     * Executes the asynchronous or limited node in the cursor slot without blocking and moves the cursor to the next
+     * one.
+     */
+    private <S> Mono<Cursor> executeAsyncStep(Cursor cursor, ExecutionPlan plan, Scenario<S> scenario) {
+        int slot = cursor.slot;
+        if (plan.isFork(slot)) {
+            return executeFork(cursor, plan, scenario);
+        }
+        Node<S, ?> node = startStep(slot, plan, scenario);
+        cursor.startTimer();
+
+        NodeCache cache = plan.getCache(slot);
+        Object key = cache != null ? cache.key(scenario.get()) : null;
+        Enum<?> cached = cache != null ? cache.get(key) : null;
+        if (cached != null) {
+            return Mono.fromSupplier(() -> advance(cursor, slot, cached, plan, scenario));
+        }
+        NodeLimiter limiter = plan.getLimiter(slot);
+        if (limiter != null) {
+            return executeLimitedStep(cursor, node, limiter, cache, key, plan, scenario);
+        }
+
+        Mono<? extends Enum<?>> result = metricsEnabled
+                ? executeAsyncMeasured((AsyncNode<S, ?>) node, plan, slot, scenario)
+                : ((AsyncNode<S, ?>) node).executeAsync(scenario);
+        if (cache != null) {
+            result = result.doOnNext(value -> cache.put(key, value));
+        }
+
+        Mono<Cursor> step = result
+                .map(value -> advance(cursor, slot, value, plan, scenario))
+                .switchIfEmpty(Mono.fromSupplier(() -> advance(cursor, slot, null, plan, scenario)));
+        long timeout = timeoutOf(cursor, slot, plan, scenario);
+        return timeout > 0
+                ? step.timeout(Duration.ofNanos(timeout), Mono.fromSupplier(() -> timedOut(cursor, slot, plan, scenario)))
+                : step;
+    }
+
+    /**
+     * Executes the limited node in the cursor slot, asynchronous or not, once it is within its limits, waiting for
+     * them without blocking a thread, and moves the cursor to the next one. Only the execution of the node counts
+     * against its timeout.
+     */
+    private <S> Mono<Cursor> executeLimitedStep(Cursor cursor, Node<S, ?> node, NodeLimiter limiter, NodeCache cache,
+                                                Object key, ExecutionPlan plan, Scenario<S> scenario) {
+        int slot = cursor.slot;
+        return limiter.limit(() -> executeLimited(cursor, node, cache, key, plan, slot, scenario),
+                        () -> Mono.just(rejected(limiter)), maxWaitOf(cursor, limiter, scenario), scheduler)
+                .map(value -> value == TimedOut.TIMED_OUT ? timedOut(cursor, slot, plan, scenario)
+                        : value == Limited.OVERFLOW ? overflowed(cursor, slot, plan, scenario)
+                        : advance(cursor, slot, value, plan, scenario))
+                .switchIfEmpty(Mono.fromSupplier(() -> advance(cursor, slot, null, plan, scenario)));
+    }
+
+    @SuppressWarnings("unchecked")
+    private <S> Mono<Enum<?>> executeLimited(Cursor cursor, Node<S, ?> node, NodeCache cache, Object key,
+                                             ExecutionPlan plan, int slot, Scenario<S> scenario) {
+        long timeout = timeoutOf(cursor, slot, plan, scenario);
+        if (!(node instanceof AsyncNode)) {
+            return Mono.fromCallable(() -> {
+                Enum<?> result = invoke(node, plan, slot, scenario, timeout);
+                if (cache != null && result != TimedOut.TIMED_OUT) {
+                    cache.put(key, result);
+                }
+                return result;
+            });
+        }
+        Mono<Enum<?>> result = (Mono<Enum<?>>) (metricsEnabled
+                ? executeAsyncMeasured((AsyncNode<S, ?>) node, plan, slot, scenario)
+                : ((AsyncNode<S, ?>) node).executeAsync(scenario));
+        if (cache != null) {
+            result = result.doOnNext(value -> cache.put(key, value));
+        }
+        return timeout > 0 ? result.timeout(Duration.ofNanos(timeout), Mono.just(TimedOut.TIMED_OUT)) : result;
+    }
+
+    /**
+     * Runs the branches of the fork in the cursor slot in parallel on the scheduler, and moves the cursor to the next
+     * node once they are joined. Branches still running when an {@code ANY} or {@code FIRST} join is decided are
+     * cancelled.
+     */
+    private <S> Mono<Cursor> executeFork(Cursor cursor, ExecutionPlan plan, Scenario<S> scenario) {
+        int slot = cursor.slot;
+        ExecutionPlan.ForkPlan fork = plan.getFork(slot);
+        List<Branch<S>> branches = startFork(slot, plan, scenario);
+        cursor.startTimer();
+
+        List<Mono<Branch<S>>> executions = new ArrayList<>(branches.size());
+        for (Branch<S> branch : branches) {
+            executions.add(Mono.defer(() -> {
+                Cursor branchCursor = new Cursor(plan, branch.start, cursor);
+                return executeNodesAsync(plan, branch.scenario, () -> branchCursor)
+                        .then(Mono.fromSupplier(() -> branch.end(branchCursor.lastResult)));
+            }).subscribeOn(scheduler));
+        }
+        Mono<List<Branch<S>>> joined;
+        switch (fork.getJoin()) {
+            case ANY:
+                joined = Mono.firstWithValue(executions).map(List::of)
+                        .onErrorMap(NoSuchElementException.class, Moira::firstBranchError);
+                break;
+            case FIRST:
+                joined = Mono.firstWithSignal(executions).map(List::of);
+                break;
+            default:
+                joined = Flux.mergeSequential(executions).collectList();
+        }
+        return joined.map(completed -> advance(cursor, slot, join(fork, scenario, completed), plan, scenario))
+                .onErrorResume(ExecutionTimeoutException.class,
+                        e -> Mono.fromSupplier(() -> timedOut(cursor, slot, plan, scenario)));
+    }
+
+    /**
+     * Reports the failure of every branch of an {@code ANY} join as the first error with the others suppressed, as
+     * {@link ForkJoiner} does.
+     */
+    private static Throwable firstBranchError(NoSuchElementException e) {
+        List<Throwable> errors = Exceptions.unwrapMultiple(e.getCause());
+        if (errors.isEmpty()) {
+            return e;
+        }
+        Throwable first = errors.get(0);
+        errors.subList(1, errors.size()).forEach(first::addSuppressed);
+        return first;
+    }
+
+    /**
+     * Same as {@link #executeFork(Cursor, ExecutionPlan, Scenario)} for executions that block the calling thread,
+     * which runs the branches not taken by the scheduler yet. Branches still running once the fork is joined are
+     * cancelled before their next hop.
+     */
+    private <S> void executeForkSync(Cursor cursor, ExecutionPlan plan, Scenario<S> scenario) {
+        int slot = cursor.slot;
+        ExecutionPlan.ForkPlan fork = plan.getFork(slot);
+        List<Branch<S>> branches = startFork(slot, plan, scenario);
+        cursor.startTimer();
+
+        List<Cursor> branchCursors = new ArrayList<>(branches.size());
+        List<Callable<Branch<S>>> executions = new ArrayList<>(branches.size());
+        for (Branch<S> branch : branches) {
+            Cursor branchCursor = new Cursor(plan, branch.start, cursor);
+            branchCursors.add(branchCursor);
+            executions.add(() -> {
+                run(plan, branch.scenario, branchCursor);
+                return branch.end(branchCursor.lastResult);
+            });
+        }
+        List<Branch<S>> joined;
+        try {
+            joined = ForkJoiner.join(executions,
+                    () -> branchCursors.forEach(branchCursor -> branchCursor.cancelled = true),
+                    fork.getJoin(),
+                    scheduler);
+        } catch (ExecutionTimeoutException e) {
+            timedOut(cursor, slot, plan, scenario);
+            return;
+        }
+        advance(cursor, slot, join(fork, scenario, joined), plan, scenario);
+    }
+
+    /**
+     * Creates the branches of the fork in the given slot, each with its own partition of the scenario when the fork
+     * has a partitioner.
+     */
+    @SuppressWarnings("unchecked")
+    private <S> List<Branch<S>> startFork(int slot, ExecutionPlan plan, Scenario<S> scenario) {
+        ExecutionPlan.ForkPlan fork = plan.getFork(slot);
+        String forkId = plan.getNodeId(slot).getValue();
+        int[] starts = fork.getBranches();
+        if (starts.length == 0) {
+            throw new RuntimeException(String.format("Fork %s of workflow %s has no branches during execution %s",
+                    forkId, plan.getWorkflow().getId().getValue(), scenario.getExecutionId()));
+        }
+        if (isTracing()) {
+            logger.debug("[{}] Forking <{}> into {} branches, joining {}", scenario.getExecutionId(), forkId,
+                    starts.length, fork.getJoin());
+        }
+
+        ScenarioPartitioner<S> partitioner = (ScenarioPartitioner<S>) fork.getPartitioner();
+        List<Branch<S>> branches = new ArrayList<>(starts.length);
+        for (int i = 0; i < starts.length; i++) {
+            if (starts[i] == ExecutionPlan.UNDECLARED_NODE) {
+                NodeId branchId = plan.getWorkflow().getForks().get(plan.getNodeId(slot)).getBranches().get(i);
+                logger.error("[{}] Branch <{}> is not declared in workflow. Ending execution with error.", scenario.getExecutionId(), branchId.getValue());
+                throw new RuntimeException(String.format("Branch %s of fork %s is not declared in workflow %s during execution %s",
+                        branchId.getValue(), forkId, plan.getWorkflow().getId().getValue(), scenario.getExecutionId()));
+            }
+            Scenario<S> branchScenario = partitioner != null
+                    ? scenario.with(partitioner.partition(scenario.get(), plan.getNodeId(starts[i]).getValue()))
+                    : scenario;
+            branches.add(new Branch<>(starts[i], branchScenario));
+        }
+        return branches;
+    }
+
+    /**
+     * Merges the scenarios of the joined branches back when the fork has a partitioner.
+     *
+     * @return the result decided by the fork
+     */
+    @SuppressWarnings("unchecked")
+    private <S> Enum<?> join(ExecutionPlan.ForkPlan fork, Scenario<S> scenario, List<Branch<S>> joined) {
+        ScenarioPartitioner<S> partitioner = (ScenarioPartitioner<S>) fork.getPartitioner();
+        if (partitioner != null) {
+            List<S> partitions = new ArrayList<>(joined.size());
+            joined.forEach(branch -> partitions.add(branch.scenario.get()));
+            partitioner.merge(scenario.get(), partitions);
+        }
+        return fork.getJoin() == Fork.Join.ALL ? ForkResult.DONE : joined.get(0).result;
+    }
+
+    /**
+     * Records the result of the node in the given slot and moves the cursor to the next node.
+     */
+    private <S> Cursor advance(Cursor cursor, int slot, Enum<?> result, ExecutionPlan plan, Scenario<S> scenario) {
+        cursor.record(slot, result);
+        cursor.slot = endStep(slot, result, plan, scenario);
+        return cursor;
+    }
+
+    private <S> Node<S, ?> startStep(int slot, ExecutionPlan plan, Scenario<S> scenario) {
+        Node<S, ?> node = plan.getNode(slot);
+        if (node == null) {
+            throw new IllegalArgumentException(
+                    String.format("Node not found: %s for scenario: %s",
+                            plan.getNodeId(slot).getValue(),
+                            scenario.get().getClass().getName()));
+        }
+
+        if (isTracing()) {
+            NodeMetadata metadata = plan.getMetadata(slot);
+            if (traceLevel == TraceLevel.FULL) {
+                logger.debug("[{}] Executing <{}> ({}) with scenario: {}", scenario.getExecutionId(), metadata.getId(), metadata.getDescription(), scenario.get());
+            } else {
+                logger.debug("[{}] Executing <{}> ({})", scenario.getExecutionId(), metadata.getId(), metadata.getDescription());
+            }
+        }
+        return node;
+    }
+
+    /**
+     * Resolves the node that follows the one in the given slot.
+     *
+     * @return the slot of the next node, or {@link #END} when the executed node is terminal
+     */
+    private <S> int endStep(int slot, Enum<?> result, ExecutionPlan plan, Scenario<S> scenario) {
+        boolean tracing = isTracing();
+        NodeMetadata metadata = plan.getMetadata(slot);
+
+        if (plan.isTerminal(slot)) {
+            if (tracing && traceLevel == TraceLevel.FULL) {
+                logger.debug("[{}] <{}> has ended execution successfully with scenario: {}", scenario.getExecutionId(), metadata.getId(), scenario.get());
+            } else if (tracing) {
+                logger.debug("[{}] <{}> has ended execution successfully", scenario.getExecutionId(), metadata.getId());
+            }
+            return END;
+        }
+
+        if (tracing) {
+            logger.debug("[{}] <{}> decided result: {}", scenario.getExecutionId(), metadata.getId(), result);
+        }
+
+        int nextSlot = plan.next(slot, result);
+        if (nextSlot == ExecutionPlan.NO_TRANSITION) {
+            logger.error("[{}] No transition found for result: {}. Ending execution with error.", scenario.getExecutionId(), result);
+            throw new RuntimeException(String.format("No transition found for result %s in %s during execution %s", result, metadata.getId(), scenario.getExecutionId()));
+        }
+        if (nextSlot == ExecutionPlan.UNDECLARED_NODE) {
+            logger.error("[{}] Node <{}> is not declared in workflow. Ending execution with error.", scenario.getExecutionId(), plan.getDeclaredNext(slot, result).getValue());
+            throw new RuntimeException(String.format("Node %s reached from %s is not declared in workflow %s during execution %s", plan.getDeclaredNext(slot, result).getValue(), metadata.getId(), plan.getWorkflow().getId().getValue(), scenario.getExecutionId()));
+        }
+
+        if (tracing) {
+            logger.debug("[{}] Transitioning to next node: <{}>", scenario.getExecutionId(), plan.getNodeId(nextSlot).getValue());
+        }
+        return nextSlot;
+    }
+
+    /**
+     * The position of an execution. When recording, it also keeps the slots visited and the results decided, and when
+     * timed, how long every node took.
+     */
+    private static final class Cursor {
+
+        private final ExecutionPlan plan;
+        private final Cursor parent;
+        private final boolean branch;
+        private int slot;
+        private int hops;
+        private boolean timedOut;
+        private boolean overflowed;
+        private boolean pastDeadline;
+        private volatile boolean cancelled;
+        private int lastSlot = -1;
+        private Enum<?> lastResult;
+        private final Object cacheKey;
+        private final boolean timed;
+        private final long startNanos;
+        private long stepNanos;
+        private int[] path;
+        private Enum<?>[] results;
+        private long[] nanos;
+        private int length;
+        private ExecutionRecord replayed;
+        private ExecutionTrace trace;
+
+        /**
+         * @param cacheKey the key the outcome of the execution is cached by, or {@code null} when it is not cached
+         * @param timed    whether the execution is traced
+         */
+        private Cursor(ExecutionPlan plan, Object cacheKey, boolean timed) {
+            this(plan, plan.getStart(), null, cacheKey, timed);
+        }
+
+        /**
+         * Creates the cursor of a branch of a fork, which is neither cached nor traced, and is cancelled along with the
+         * execution forking.
+         *
+         * @param parent the cursor of the execution forking
+         */
+        private Cursor(ExecutionPlan plan, int start, Cursor parent) {
+            this(plan, start, parent, null, false);
+            this.pastDeadline = parent.pastDeadline;
+        }
+
+        private Cursor(ExecutionPlan plan, int start, Cursor parent, Object cacheKey, boolean timed) {
+            this.plan = plan;
+            this.parent = parent;
+            this.branch = parent != null;
+            this.slot = start;
+            this.cacheKey = cacheKey;
+            this.timed = timed;
+            this.startNanos = timed ? System.nanoTime() : 0;
+            if (cacheKey != null || timed) {
+                this.path = new int[8];
+                this.results = new Enum<?>[8];
+                this.nanos = timed ? new long[8] : null;
+            }
+        }
+
+        private boolean isCancelled() {
+            return cancelled || parent != null && parent.isCancelled();
+        }
+
+        private void startTimer() {
+            if (timed) {
+                stepNanos = System.nanoTime();
+            }
+        }
+
+        private void record(int from, Enum<?> result) {
+            lastSlot = from;
+            lastResult = result;
+            if (path == null) {
+                return;
+            }
+            if (length == path.length) {
+                path = Arrays.copyOf(path, length * 2);
+                results = Arrays.copyOf(results, length * 2);
+                if (nanos != null) {
+                    nanos = Arrays.copyOf(nanos, length * 2);
+                }
+            }
+            path[length] = from;
+            results[length] = result;
+            if (nanos != null) {
+                nanos[length] = System.nanoTime() - stepNanos;
+            }
+            length++;
+        }
+
+        /**
+         * Ends the execution with a cached outcome instead of executing the nodes.
+         */
+        private void replay(ExecutionRecord record) {
+            this.replayed = record;
+            this.slot = END;
+        }
+
+        /**
+         * @return the terminal node reached and its result, or {@code null} when the execution did not finish
+         */
+        private Outcome toOutcome() {
+            if (replayed != null) {
+                return new Outcome(replayed.getTerminalNode().getValue(), replayed.getResult());
+            }
+            return slot == END ? new Outcome(plan.getNodeId(lastSlot).getValue(), lastResult) : null;
+        }
+
+        private ExecutionRecord toRecord() {
+            List<NodeId> nodes = new ArrayList<>(length);
+            List<Enum<?>> decided = new ArrayList<>(length);
+            for (int i = 0; i < length; i++) {
+                nodes.add(plan.getNodeId(path[i]));
+                decided.add(results[i]);
+            }
+            return new ExecutionRecord(nodes, decided);
+        }
+
+        private ExecutionTrace toTrace(String executionId, Throwable error) {
+            List<ExecutionTrace.Step> steps;
+            if (replayed != null) {
+                steps = new ArrayList<>(replayed.getPath().size());
+                for (int i = 0; i < replayed.getPath().size(); i++) {
+                    steps.add(new ExecutionTrace.Step(replayed.getPath().get(i).getValue(), replayed.getResults().get(i), 0));
+                }
+            } else {
+                steps = new ArrayList<>(length);
+                for (int i = 0; i < length; i++) {
+                    steps.add(new ExecutionTrace.Step(plan.getNodeId(path[i]).getValue(), results[i], nanos[i]));
+                }
+            }
+            return new ExecutionTrace(executionId, plan.getWorkflow().getId().getValue(), steps,
+                    System.nanoTime() - startNanos, replayed != null, error);
+        }
+    }
+
+    /**
+     * An execution running on the subscribing thread. Cancelling it stops the execution before the next hop, and
+     * blocking on it executes the workflow right away, as {@code Mono.fromRunnable} does.
+     */
+    private final class SyncExecution<S, T> extends Mono<T> {
+
+        private final WorkFlowRegistry registry;
+        private final ExecutionPlan plan;
+        private final String workflow;
+        private final S scenario;
+        private final String executionId;
+        private final boolean traced;
+        private final Function<Cursor, T> result;
+
+        private SyncExecution(WorkFlowRegistry registry, ExecutionPlan plan, String workflow, S scenario,
+                              String executionId, boolean traced, Function<Cursor, T> result) {
+            this.registry = registry;
+            this.plan = plan;
+            this.workflow = workflow;
+            this.scenario = scenario;
+            this.executionId = executionId;
+            this.traced = traced;
+            this.result = result;
+        }
+
+        @Override
+        public void subscribe(CoreSubscriber<? super T> actual) {
+            ExecutionPlan current = currentPlan(registry, plan, workflow, scenario);
+            Scenario<S> executionScenario = newScenario(current, scenario, executionId);
+            Cursor cursor = newCursor(current, executionScenario, traced);
+            Operators.MonoSubscriber<T, T> subscription = new Operators.MonoSubscriber<>(actual) {
+                @Override
+                public void cancel() {
+                    cursor.cancelled = true;
+                    super.cancel();
+                }
+            };
+            actual.onSubscribe(subscription);
+            if (subscription.isCancelled()) {
+                return;
+            }
+            T value;
+            try {
+                value = result.apply(executeSync(current, executionScenario, cursor));
+            } catch (RuntimeException e) {
+                if (!cursor.cancelled) {
+                    actual.onError(e);
+                }
+                return;
+            }
+            if (value != null) {
+                subscription.complete(value);
+            } else {
+                actual.onComplete();
+            }
+        }
+
+        @Override
+        public T block() {
+            ExecutionPlan current = currentPlan(registry, plan, workflow, scenario);
+            return result.apply(executeSync(current, newScenario(current, scenario, executionId), traced));
+        }
+
+        /**
+         * Executes the workflow right away, cancelling it before the next hop and interrupting the node running once
+         * the timeout has elapsed.
+         *
+         * @throws IllegalStateException when the timeout elapsed before the execution finished
+         */
+        @Override
+        public T block(Duration timeout) {
+            ExecutionPlan current = currentPlan(registry, plan, workflow, scenario);
+            Scenario<S> executionScenario = newScenario(current, scenario, executionId);
+            Cursor cursor = newCursor(current, executionScenario, traced);
+            Watchdog watchdog = new Watchdog(timeout.toNanos(), () -> cursor.cancelled = true);
+            Cursor finished = null;
+            RuntimeException error = null;
+            boolean timedOut;
+            try {
+                finished = executeSync(current, executionScenario, cursor);
+            } catch (RuntimeException e) {
+                error = e;
+            } finally {
+                timedOut = watchdog.stop();
+            }
+            if (error == null) {
+                return result.apply(finished);
+            }
+            if (timedOut) {
+                IllegalStateException timeoutError = new IllegalStateException(
+                        "Timeout on blocking read for " + timeout.toNanos() + " " + TimeUnit.NANOSECONDS);
+                timeoutError.addSuppressed(error);
+                throw timeoutError;
+            }
+            throw error;
+        }
+    }
+
+    /**
+     * Lets generated code count hops, record the path taken and end executions as the interpreter does.
+     */
+    private final class GeneratedSteps implements GeneratedWorkflow.Steps {
+
+        @Override
+        public void hop(Object cursor, Scenario<?> scenario) {
+            Cursor position = (Cursor) cursor;
+            checkCancelled(position, position.plan, scenario);
+            checkHops(++position.hops, position.plan, scenario);
+        }
+
+        @Override
+        public void record(Object cursor, int slot, Enum<?> result) {
+            ((Cursor) cursor).record(slot, result);
+        }
+
+        @Override
+        public void end(Object cursor, int slot, Enum<?> result, Scenario<?> scenario) {
+            Cursor position = (Cursor) cursor;
+            position.slot = endStep(slot, result, position.plan, scenario);
+        }
+    }
+
+    /**
+     * Stands for the result of a node that timed out.
+     */
+    private enum TimedOut {
+        TIMED_OUT
+    }
+
+    /**
+     * Stands for the result of a node over its limits, which decides its overflow result instead.
+     */
+    private enum Limited {
+        OVERFLOW
+    }
+
+    /**
+     * A branch of a fork: the slot it starts at and the scenario it runs on, with the result of the terminal node it
+     * reached once it is finished.
+     */
+    private static final class Branch<S> {
+
+        private final int start;
+        private final Scenario<S> scenario;
+        private Enum<?> result;
+
+        private Branch(int start, Scenario<S> scenario) {
+            this.start = start;
+            this.scenario = scenario;
+        }
+
+        private Branch<S> end(Enum<?> result) {
+            this.result = result;
+            return this;
+        }
+    }
+
+    private <S> Mono<? extends Enum<?>> executeAsyncMeasured(AsyncNode<S, ?> node, ExecutionPlan plan, int slot,
+                                                            Scenario<S> scenario) {
+        String workflowId = plan.getWorkflow().getId().getValue();
+        String nodeId = plan.getNodeId(slot).getValue();
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            return node.executeAsync(scenario)
+                    .doOnSuccess(result -> metrics.recordNode(workflowId, nodeId, result, System.nanoTime() - start))
+                    .doOnError(error -> metrics.recordNodeError(workflowId, nodeId, error, System.nanoTime() - start));
+        });
+    }
+
+    private boolean isTracing() {
+        return traceLevel != TraceLevel.OFF && logger.isDebugEnabled();
+    }
+
+    private <S> Enum<?> executeMeasured(Node<S, ?> node, ExecutionPlan plan, int slot, Scenario<S> scenario) {
+        String workflowId = plan.getWorkflow().getId().getValue();
+        String nodeId = plan.getNodeId(slot).getValue();
+        long start = System.nanoTime();
+        Enum<?> result;
+        try {
+            result = node.execute(scenario);
+        } catch (RuntimeException e) {
+            metrics.recordNodeError(workflowId, nodeId, e, System.nanoTime() - start);
+            throw e;
+        }
+        metrics.recordNode(workflowId, nodeId, result, System.nanoTime() - start);
+        return result;
     }
 
 }
@@ -1,15 +1,97 @@
 package com.dpf.moira;
 
+import java.lang.reflect.Array;
+import java.lang.reflect.GenericArrayType;
 import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.HashMap;
+import java.util.Map;
 
 public abstract class Node<S, E extends Enum<E>> {
 
+    /**
+     * The scenario and result classes of every node class, resolved once.
+     */
+    private static final ClassValue<Class<?>[]> TYPE_ARGUMENTS = new ClassValue<>() {
+        @Override
+        protected Class<?>[] computeValue(Class<?> nodeClass) {
+            return resolveTypeArguments(nodeClass);
+        }
+    };
+
     abstract public E execute(Scenario<S> scenario);
 
     final Class<S> getScenarioClass() {
         @SuppressWarnings("unchecked")
-        Class<S> scenarioClass = (Class<S>) ((ParameterizedType) getClass().getGenericSuperclass()).getActualTypeArguments()[0];
+        Class<S> scenarioClass = (Class<S>) TYPE_ARGUMENTS.get(getClass())[0];
         return scenarioClass;
     }
 
+    final Class<E> getResultClass() {
+        @SuppressWarnings("unchecked")
+        Class<E> resultClass = (Class<E>) TYPE_ARGUMENTS.get(getClass())[1];
+        return resultClass;
+    }
+
+    /**
+     * Resolves the type arguments of {@code Node} by walking up from the node class, so they are found also when
+     * they are set by an intermediate, possibly generic, superclass.
+     */
+    private static Class<?>[] resolveTypeArguments(Class<?> nodeClass) {
+        Map<TypeVariable<?>, Type> bindings = new HashMap<>();
+        Class<?> current = nodeClass;
+        while (current != null && current != Node.class) {
+            Type superType = current.getGenericSuperclass();
+            Class<?> superClass = current.getSuperclass();
+            if (superType instanceof ParameterizedType) {
+                Type[] arguments = ((ParameterizedType) superType).getActualTypeArguments();
+                TypeVariable<?>[] parameters = superClass.getTypeParameters();
+                for (int i = 0; i < parameters.length; i++) {
+                    bindings.put(parameters[i], bind(arguments[i], bindings));
+                }
+            }
+            current = superClass;
+        }
+
+        TypeVariable<?>[] parameters = Node.class.getTypeParameters();
+        Class<?> scenarioClass = rawClass(bindings.getOrDefault(parameters[0], parameters[0]));
+        Class<?> resultClass = rawClass(bindings.getOrDefault(parameters[1], parameters[1]));
+        if (!resultClass.isEnum()) {
+            throw new IllegalArgumentException(String.format(
+                    "Cannot resolve the result enum of node %s, its class must set the type arguments of Node",
+                    nodeClass.getName()));
+        }
+        return new Class<?>[]{scenarioClass, resultClass};
+    }
+
+    private static Type bind(Type type, Map<TypeVariable<?>, Type> bindings) {
+        Type bound = type;
+        while (bound instanceof TypeVariable && bindings.containsKey(bound)) {
+            bound = bindings.get(bound);
+        }
+        return bound;
+    }
+
+    private static Class<?> rawClass(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        }
+        if (type instanceof ParameterizedType) {
+            return rawClass(((ParameterizedType) type).getRawType());
+        }
+        if (type instanceof TypeVariable) {
+            return rawClass(((TypeVariable<?>) type).getBounds()[0]);
+        }
+        if (type instanceof WildcardType) {
+            return rawClass(((WildcardType) type).getUpperBounds()[0]);
+        }
+        if (type instanceof GenericArrayType) {
+            return Array.newInstance(
+                    rawClass(((GenericArrayType) type).getGenericComponentType()), 0).getClass();
+        }
+        return Object.class;
+    }
+
 }
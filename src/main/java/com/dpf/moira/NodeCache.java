@@ -0,0 +1,72 @@
+package com.dpf.moira;
+
+import com.dpf.moira.cache.CacheKeyExtractor;
+import com.dpf.moira.cache.CacheStats;
+import com.dpf.moira.cache.LruCache;
+
+/**
+ * The results of a {@link Decision#cacheable() cacheable} node, shared across executions.
+ */
+final class NodeCache {
+
+    private final LruCache<Object, Enum<?>> cache;
+    private final CacheKeyExtractor<Object> keyExtractor;
+
+    private NodeCache(LruCache<Object, Enum<?>> cache, CacheKeyExtractor<Object> keyExtractor) {
+        this.cache = cache;
+        this.keyExtractor = keyExtractor;
+    }
+
+    /**
+     * @return the cache of the node, or {@code null} when it is not cacheable
+     * @throws IllegalArgumentException when the node is cacheable without a cache key extractor, or the extractor
+     *                                  cannot be instantiated
+     */
+    @SuppressWarnings("unchecked")
+    static NodeCache of(Node<?, ?> node) {
+        Decision decision = node.getClass().getAnnotation(Decision.class);
+        if (decision == null || !decision.cacheable()) {
+            return null;
+        }
+        if (decision.cacheKey() == CacheKeyExtractor.class) {
+            throw new IllegalArgumentException(
+                    String.format("Cacheable node %s has no cacheKey extractor", decision.id()));
+        }
+        try {
+            CacheKeyExtractor<Object> keyExtractor = decision.cacheKey().getDeclaredConstructor().newInstance();
+            return new NodeCache(new LruCache<>(decision.cacheSize(), decision.cacheTtlMillis()), keyExtractor);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalArgumentException(
+                    String.format("Invalid cache key extractor %s for node %s",
+                            decision.cacheKey().getName(),
+                            decision.id()), e);
+        }
+    }
+
+    /**
+     * @return the key of the result for the scenario, or {@code null} when it is not cached
+     */
+    Object key(Object scenario) {
+        return keyExtractor.extract(scenario);
+    }
+
+    /**
+     * @return the cached result, or {@code null} when there is none or the key is {@code null}
+     */
+    Enum<?> get(Object key) {
+        return key != null ? cache.get(key) : null;
+    }
+
+    /**
+     * Caches the result, unless it or the key is {@code null}.
+     */
+    void put(Object key, Enum<?> result) {
+        if (key != null && result != null) {
+            cache.put(key, result);
+        }
+    }
+
+    CacheStats getStats() {
+        return cache.getStats();
+    }
+}
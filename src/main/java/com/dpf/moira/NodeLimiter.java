@@ -0,0 +1,295 @@
+package com.dpf.moira;
+
+import reactor.core.publisher.Mono;
+import reactor.core.publisher.MonoSink;
+import reactor.core.scheduler.Scheduler;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * The concurrency and rate limits of a node, shared by every execution of every workflow using it.
+ * <p>
+ * The concurrency limit is a bulkhead counting the free slots of the node. Executions finding none queue up in arrival
+ * order and are handed a slot by the execution releasing it. The rate limit is a token bucket holding up to one
+ * second of permits, kept as the time the next permit is free (the generic cell rate algorithm), so a permit is
+ * reserved with a single compare and set and the wait for it is known up front. Neither limit takes a lock.
+ */
+final class NodeLimiter {
+
+    private static final Mono<Boolean> ACQUIRED = Mono.just(true);
+    private static final Mono<Boolean> REJECTED = Mono.just(false);
+
+    private final String nodeId;
+    private final int maxConcurrency;
+    private final AtomicInteger available;
+    private final Queue<Waiter> waiters = new ConcurrentLinkedQueue<>();
+    private final long interval;
+    private final long tolerance;
+    private final AtomicLong nextPermit = new AtomicLong(System.nanoTime());
+    private final Enum<?> overflow;
+
+    /**
+     * @param maxConcurrency   how many executions of the node may run at once, or {@code 0} when not limited
+     * @param maxRatePerSecond how many executions of the node may start per second, or {@code 0} when not limited
+     * @param overflow         the result taken when the node is over its limits, or {@code null} to wait
+     */
+    NodeLimiter(String nodeId, int maxConcurrency, double maxRatePerSecond, Enum<?> overflow) {
+        this.nodeId = nodeId;
+        this.maxConcurrency = maxConcurrency;
+        this.available = new AtomicInteger(maxConcurrency);
+        this.interval = maxRatePerSecond > 0 ? Math.max((long) (TimeUnit.SECONDS.toNanos(1) / maxRatePerSecond), 1) : 0;
+        this.tolerance = interval * (Math.max((long) maxRatePerSecond, 1) - 1);
+        this.overflow = overflow;
+    }
+
+    /**
+     * @return the result taken when the node is over its limits, or {@code null} when executions wait instead
+     */
+    Enum<?> getOverflow() {
+        return overflow;
+    }
+
+    /**
+     * Takes a slot and a permit for an execution, parking the calling thread while waiting for them. A slot taken
+     * must be given back with {@link #release()}.
+     *
+     * @param maxWaitNanos how long to wait at most, {@code 0} not to wait or {@link Long#MAX_VALUE} to wait as long as
+     *                     needed
+     * @return whether the execution may start, {@code false} when it could not within the wait
+     * @throws CancellationException when the thread is interrupted while waiting
+     */
+    boolean acquire(long maxWaitNanos) {
+        long start = System.nanoTime();
+        if (!acquireSlot(maxWaitNanos, start)) {
+            return false;
+        }
+        long wait = reserve(remaining(maxWaitNanos, start));
+        if (wait < 0) {
+            release();
+            return false;
+        }
+        long until = System.nanoTime() + wait;
+        for (long parked = wait; parked > 0; parked = until - System.nanoTime()) {
+            LockSupport.parkNanos(this, parked);
+            if (Thread.interrupted()) {
+                release();
+                throw interrupted();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Gives back the slot taken by {@link #acquire(long)}.
+     */
+    void release() {
+        if (maxConcurrency > 0) {
+            releaseSlot();
+        }
+    }
+
+    /**
+     * Runs an execution once it gets a slot and a permit, waiting for them without blocking a thread. The slot is
+     * given back as soon as the execution signals, or when it is cancelled.
+     *
+     * @param execution    the execution to run
+     * @param rejected     what to run instead when the execution could not start within the wait
+     * @param maxWaitNanos how long to wait at most, {@code 0} not to wait or {@link Long#MAX_VALUE} to wait as long as
+     *                     needed
+     * @param scheduler    where executions resume after waiting
+     */
+    <T> Mono<T> limit(Supplier<Mono<T>> execution, Supplier<Mono<T>> rejected, long maxWaitNanos,
+                      Scheduler scheduler) {
+        return Mono.defer(() -> {
+            long start = System.nanoTime();
+            Waiter slot = new Waiter(maxConcurrency > 0 ? Waiter.WAITING : Waiter.DONE);
+            return acquireSlot(slot, maxWaitNanos, scheduler)
+                    .flatMap(acquired -> acquired ? awaitPermit(remaining(maxWaitNanos, start), scheduler) : REJECTED)
+                    .flatMap(acquired -> acquired
+                            ? execution.get().doOnEach(signal -> slot.release())
+                            : rejected.get())
+                    .doFinally(signal -> slot.release());
+        });
+    }
+
+    private boolean acquireSlot(long maxWaitNanos, long start) {
+        if (maxConcurrency == 0 || waiters.isEmpty() && tryAcquireSlot()) {
+            return true;
+        }
+        if (maxWaitNanos == 0) {
+            return false;
+        }
+        Waiter waiter = new Waiter(Waiter.WAITING);
+        waiter.thread = Thread.currentThread();
+        waiters.add(waiter);
+        drain();
+        long until = start + maxWaitNanos;
+        while (waiter.state.get() != Waiter.GRANTED) {
+            if (maxWaitNanos == Long.MAX_VALUE) {
+                LockSupport.park(this);
+            } else {
+                long parked = until - System.nanoTime();
+                if (parked <= 0) {
+                    return !waiter.cancel();
+                }
+                LockSupport.parkNanos(this, parked);
+            }
+            if (Thread.interrupted()) {
+                if (!waiter.cancel()) {
+                    releaseSlot();
+                }
+                throw interrupted();
+            }
+        }
+        return true;
+    }
+
+    private Mono<Boolean> acquireSlot(Waiter slot, long maxWaitNanos, Scheduler scheduler) {
+        if (maxConcurrency == 0) {
+            return ACQUIRED;
+        }
+        if (waiters.isEmpty() && tryAcquireSlot()) {
+            slot.state.set(Waiter.GRANTED);
+            return ACQUIRED;
+        }
+        if (maxWaitNanos == 0) {
+            slot.state.set(Waiter.DONE);
+            return REJECTED;
+        }
+        Mono<Boolean> granted = Mono.<Boolean>create(sink -> {
+            slot.sink = sink;
+            waiters.add(slot);
+            drain();
+        }).publishOn(scheduler);
+        return maxWaitNanos == Long.MAX_VALUE
+                ? granted
+                : granted.timeout(Duration.ofNanos(maxWaitNanos), Mono.fromSupplier(() -> !slot.cancel()));
+    }
+
+    private boolean tryAcquireSlot() {
+        for (int free = available.get(); free > 0; free = available.get()) {
+            if (available.compareAndSet(free, free - 1)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void releaseSlot() {
+        available.incrementAndGet();
+        drain();
+    }
+
+    /**
+     * Hands the free slots to the executions waiting for one. Every execution queueing and every slot released
+     * drains, so a slot is never left free while an execution waits.
+     */
+    private void drain() {
+        while (!waiters.isEmpty() && tryAcquireSlot()) {
+            Waiter waiter = waiters.poll();
+            if (waiter == null || !waiter.grant()) {
+                available.incrementAndGet();
+            }
+        }
+    }
+
+    private Mono<Boolean> awaitPermit(long maxWaitNanos, Scheduler scheduler) {
+        long wait = reserve(maxWaitNanos);
+        if (wait < 0) {
+            return REJECTED;
+        }
+        return wait == 0 ? ACQUIRED : Mono.delay(Duration.ofNanos(wait)).publishOn(scheduler).thenReturn(true);
+    }
+
+    /**
+     * Reserves the next permit of the rate limit.
+     *
+     * @return how long to wait for the permit in nanoseconds, or {@code -1} when it is further away than
+     * {@code maxWaitNanos} and was not reserved
+     */
+    private long reserve(long maxWaitNanos) {
+        if (interval == 0) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        while (true) {
+            long next = nextPermit.get();
+            long free = next - now > 0 ? next : now;
+            long wait = Math.max(free - tolerance - now, 0);
+            if (wait > maxWaitNanos) {
+                return -1;
+            }
+            if (nextPermit.compareAndSet(next, free + interval)) {
+                return wait;
+            }
+        }
+    }
+
+    private static long remaining(long maxWaitNanos, long start) {
+        return maxWaitNanos == Long.MAX_VALUE ? maxWaitNanos : Math.max(maxWaitNanos - (System.nanoTime() - start), 0);
+    }
+
+    private CancellationException interrupted() {
+        Thread.currentThread().interrupt();
+        return new CancellationException("Interrupted while waiting for the limits of node " + nodeId);
+    }
+
+    /**
+     * An execution waiting for a slot, parked on its thread or subscribed through its sink. Once granted, it holds the
+     * slot until released.
+     */
+    private final class Waiter {
+
+        private static final int WAITING = 0;
+        private static final int GRANTED = 1;
+        private static final int DONE = 2;
+
+        private final AtomicInteger state;
+        private Thread thread;
+        private MonoSink<Boolean> sink;
+
+        private Waiter(int state) {
+            this.state = new AtomicInteger(state);
+        }
+
+        private boolean grant() {
+            if (!state.compareAndSet(WAITING, GRANTED)) {
+                return false;
+            }
+            if (thread != null) {
+                LockSupport.unpark(thread);
+            } else {
+                sink.success(true);
+            }
+            return true;
+        }
+
+        /**
+         * @return whether the waiter was still waiting, {@code false} when it was granted a slot in the meantime
+         */
+        private boolean cancel() {
+            if (state.compareAndSet(WAITING, DONE)) {
+                waiters.remove(this);
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Gives back the slot when it was granted, or stops waiting for it.
+         */
+        private void release() {
+            if (!cancel() && state.compareAndSet(GRANTED, DONE)) {
+                releaseSlot();
+            }
+        }
+    }
+}
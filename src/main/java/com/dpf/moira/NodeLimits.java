@@ -0,0 +1,94 @@
+package com.dpf.moira;
+
+import com.dpf.moira.properties.MoiraProperties;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The concurrency and rate limits of nodes configured in {@code moira.properties}, as comma separated
+ * {@code nodeId:value} pairs, which take precedence over the ones declared on the {@link Decision}.
+ */
+final class NodeLimits {
+
+    static final NodeLimits NONE = new NodeLimits(Map.of(), Map.of(), Map.of());
+
+    private final Map<String, Integer> maxConcurrency;
+    private final Map<String, Double> maxRatePerSecond;
+    private final Map<String, String> overflowResults;
+
+    private NodeLimits(Map<String, Integer> maxConcurrency, Map<String, Double> maxRatePerSecond,
+                       Map<String, String> overflowResults) {
+        this.maxConcurrency = maxConcurrency;
+        this.maxRatePerSecond = maxRatePerSecond;
+        this.overflowResults = overflowResults;
+    }
+
+    /**
+     * @throws IllegalArgumentException when a limit is not a {@code nodeId:value} pair or its value is not a number
+     */
+    static NodeLimits of(MoiraProperties properties) {
+        return new NodeLimits(
+                parse(properties.getNodeMaxConcurrency(), "nodeMaxConcurrency", Integer::valueOf),
+                parse(properties.getNodeMaxRatePerSecond(), "nodeMaxRatePerSecond", Double::valueOf),
+                parse(properties.getNodeOverflowResults(), "nodeOverflowResults", Function.identity()));
+    }
+
+    private static <T> Map<String, T> parse(String value, String property, Function<String, T> parser) {
+        Map<String, T> limits = new HashMap<>();
+        if (value == null) {
+            return limits;
+        }
+        for (String entry : value.split(",")) {
+            if (entry.isBlank()) {
+                continue;
+            }
+            String[] pair = entry.split(":");
+            try {
+                if (pair.length != 2 || pair[0].isBlank() || pair[1].isBlank()) {
+                    throw new IllegalArgumentException("expected nodeId:value");
+                }
+                limits.put(pair[0].trim(), parser.apply(pair[1].trim()));
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException(
+                        String.format("Invalid %s entry '%s': %s", property, entry.trim(), e.getMessage()), e);
+            }
+        }
+        return limits;
+    }
+
+    /**
+     * @return the limiter of the node, or {@code null} when it has no limits
+     * @throws IllegalArgumentException when a limit is negative or the overflow result is not a result of the node
+     */
+    NodeLimiter limiterOf(Node<?, ?> node, NodeMetadata metadata) {
+        String nodeId = metadata.getId();
+        Decision decision = node.getClass().getAnnotation(Decision.class);
+        int concurrency = maxConcurrency.getOrDefault(nodeId, decision != null ? decision.maxConcurrency() : 0);
+        double rate = maxRatePerSecond.getOrDefault(nodeId, decision != null ? decision.maxRatePerSecond() : 0);
+        String overflow = overflowResults.getOrDefault(nodeId, decision != null ? decision.overflowResult() : "");
+        if (concurrency < 0 || rate < 0 || Double.isNaN(rate)) {
+            throw new IllegalArgumentException(String.format("Negative limit for node %s", nodeId));
+        }
+        if (concurrency == 0 && rate == 0) {
+            return null;
+        }
+        return new NodeLimiter(nodeId, concurrency, rate, overflowOf(node, nodeId, overflow));
+    }
+
+    private static Enum<?> overflowOf(Node<?, ?> node, String nodeId, String overflow) {
+        if (overflow.isBlank()) {
+            return null;
+        }
+        return Arrays.stream(node.getResultClass().getEnumConstants())
+                .filter(result -> result.name().equals(overflow.trim()))
+                .findFirst()
+                .orElseThrow(() -> new IllegalArgumentException(
+                        String.format("Overflow result %s of node %s is not a value of %s",
+                                overflow.trim(),
+                                nodeId,
+                                node.getResultClass().getSimpleName())));
+    }
+}
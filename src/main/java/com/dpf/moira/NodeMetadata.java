@@ -0,0 +1,46 @@
+package com.dpf.moira;
+
+/**
+ * The {@link Decision} metadata of a node, read once when the node is registered.
+ */
+final class NodeMetadata {
+
+    private final String id;
+    private final String description;
+    private final long timeoutMillis;
+
+    private NodeMetadata(String id, String description, long timeoutMillis) {
+        this.id = id;
+        this.description = description;
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    static NodeMetadata of(Node<?, ?> node) {
+        Class<?> nodeClass = node.getClass();
+        Decision decision = nodeClass.getAnnotation(Decision.class);
+        String id = decision != null ? decision.id() : nodeClass.getSimpleName();
+        String description = (decision != null && !decision.description().isBlank())
+                ? decision.description()
+                : id;
+        return new NodeMetadata(id, description, decision != null ? decision.timeoutMillis() : 0);
+    }
+
+    static NodeMetadata of(String id, String description) {
+        return new NodeMetadata(id, description, 0);
+    }
+
+    String getId() {
+        return id;
+    }
+
+    String getDescription() {
+        return description;
+    }
+
+    /**
+     * @return the timeout declared on the {@link Decision}, or {@code 0}
+     */
+    long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+}
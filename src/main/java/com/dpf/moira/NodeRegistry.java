@@ -1,34 +1,265 @@
 package com.dpf.moira;
 
 
+import com.dpf.moira.cache.CacheStats;
 import com.dpf.moira.entity.NodeId;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * The registered nodes, by ID and scenario class.
+ * <p>
+ * A node applies to its scenario class and every subclass or implementation of it, so proxies and subclasses of a
+ * scenario resolve to the same node. When several nodes apply, the one registered for the closest type of the
+ * scenario hierarchy wins. Resolutions are cached per scenario class in a {@link ClassValue}, so after the first
+ * lookup resolving a node is constant time.
+ * <p>
+ * Nodes can be registered and unregistered at runtime. Every change publishes a new immutable snapshot, so readers
+ * never lock and always see a consistent set of nodes.
+ */
 class NodeRegistry {
 
-    private final Map<NodeId, Map<Class<?>, Node<?, ?>>> nodeRegistryMap;
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private final NodeLimits limits;
+
+    private volatile Snapshot snapshot;
 
     NodeRegistry(Collection<Node<?, ?>> nodes) {
+        this(nodes, NodeLimits.NONE);
+    }
+
+    /**
+     * @param limits the limits of the nodes configured in {@code moira.properties}
+     */
+    NodeRegistry(Collection<Node<?, ?>> nodes, NodeLimits limits) {
+        this.limits = limits;
         Map<NodeId, Map<Class<?>, Node<?, ?>>> nodeMap = new HashMap<>();
+        Map<Node<?, ?>, NodeMetadata> metadataMap = new IdentityHashMap<>();
+        Map<Node<?, ?>, NodeCache> cacheMap = new IdentityHashMap<>();
+        Map<Node<?, ?>, NodeLimiter> limiterMap = new IdentityHashMap<>();
         for (Node<?, ?> node : nodes) {
-            Decision decision = node.getClass().getAnnotation(Decision.class);
-            String nodeId = decision != null ? decision.id() : node.getClass().getSimpleName();
-            Map<Class<?>, Node<?, ?>> scenarioMap = nodeMap.computeIfAbsent(new NodeId(nodeId), k -> new HashMap<>());
-            scenarioMap.put(node.getScenarioClass(), node);
+            add(node, nodeMap, metadataMap, cacheMap, limiterMap);
+        }
+        this.snapshot = new Snapshot(nodeMap, metadataMap, cacheMap, limiterMap);
+    }
+
+    private void add(Node<?, ?> node, Map<NodeId, Map<Class<?>, Node<?, ?>>> nodeMap,
+                     Map<Node<?, ?>, NodeMetadata> metadataMap, Map<Node<?, ?>, NodeCache> cacheMap,
+                     Map<Node<?, ?>, NodeLimiter> limiterMap) {
+        NodeMetadata metadata = NodeMetadata.of(node);
+        metadataMap.put(node, metadata);
+        NodeCache cache = NodeCache.of(node);
+        if (cache != null) {
+            cacheMap.put(node, cache);
+        }
+        NodeLimiter limiter = limits.limiterOf(node, metadata);
+        if (limiter != null) {
+            limiterMap.put(node, limiter);
+        }
+        Map<Class<?>, Node<?, ?>> scenarioMap = nodeMap.computeIfAbsent(new NodeId(metadata.getId()), k -> new HashMap<>());
+        Node<?, ?> replaced = scenarioMap.put(node.getScenarioClass(), node);
+        if (replaced != null && replaced != node) {
+            metadataMap.remove(replaced);
+            cacheMap.remove(replaced);
+            limiterMap.remove(replaced);
+        }
+    }
+
+    /**
+     * Registers a node, replacing the node registered with the same ID and scenario class, if any.
+     */
+    synchronized void register(Node<?, ?> node) {
+        Snapshot current = this.snapshot;
+        Map<NodeId, Map<Class<?>, Node<?, ?>>> nodeMap = current.copyNodes();
+        Map<Node<?, ?>, NodeMetadata> metadataMap = new IdentityHashMap<>(current.metadataByNode);
+        Map<Node<?, ?>, NodeCache> cacheMap = new IdentityHashMap<>(current.cacheByNode);
+        Map<Node<?, ?>, NodeLimiter> limiterMap = new IdentityHashMap<>(current.limiterByNode);
+        add(node, nodeMap, metadataMap, cacheMap, limiterMap);
+        this.snapshot = new Snapshot(nodeMap, metadataMap, cacheMap, limiterMap);
+    }
+
+    /**
+     * @return whether the node was registered
+     */
+    synchronized boolean unregister(Node<?, ?> node) {
+        Snapshot current = this.snapshot;
+        NodeMetadata metadata = current.metadataByNode.get(node);
+        if (metadata == null) {
+            return false;
+        }
+        Map<NodeId, Map<Class<?>, Node<?, ?>>> nodeMap = current.copyNodes();
+        Map<Node<?, ?>, NodeMetadata> metadataMap = new IdentityHashMap<>(current.metadataByNode);
+        Map<Node<?, ?>, NodeCache> cacheMap = new IdentityHashMap<>(current.cacheByNode);
+        Map<Node<?, ?>, NodeLimiter> limiterMap = new IdentityHashMap<>(current.limiterByNode);
+        NodeId nodeId = new NodeId(metadata.getId());
+        Map<Class<?>, Node<?, ?>> scenarioMap = nodeMap.get(nodeId);
+        scenarioMap.values().removeIf(registered -> registered == node);
+        if (scenarioMap.isEmpty()) {
+            nodeMap.remove(nodeId);
         }
-        nodeRegistryMap = Collections.unmodifiableMap(nodeMap);
+        metadataMap.remove(node);
+        cacheMap.remove(node);
+        limiterMap.remove(node);
+        this.snapshot = new Snapshot(nodeMap, metadataMap, cacheMap, limiterMap);
+        return true;
+    }
+
+    /**
+     * @return the nodes registered right now. Use it to make several lookups against the same set of nodes
+     */
+    Snapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return a number that changes every time a node is registered or unregistered
+     */
+    long getVersion() {
+        return snapshot.version;
     }
 
-    @SuppressWarnings("unchecked")
     <S> Optional<Node<S, ?>> get(NodeId nodeId, Class<S> scenarioClass) {
-        Map<Class<?>, Node<?, ?>> scenarioMap = nodeRegistryMap.get(nodeId);
-        if (scenarioMap != null) {
-            Node<?, ?> node = scenarioMap.get(scenarioClass);
-            if (node != null && scenarioClass.isAssignableFrom(node.getScenarioClass())) {
-                return Optional.of((Node<S, ?>) node);
+        return snapshot.get(nodeId, scenarioClass);
+    }
+
+    NodeMetadata getMetadata(Node<?, ?> node) {
+        return snapshot.getMetadata(node);
+    }
+
+    /**
+     * @return the result cache of the node, or {@code null} when it is not cacheable
+     */
+    NodeCache getCache(Node<?, ?> node) {
+        return snapshot.getCache(node);
+    }
+
+    /**
+     * @return the statistics of every node result cache, by node ID
+     */
+    Map<String, CacheStats> getCacheStats() {
+        Snapshot current = snapshot;
+        Map<String, CacheStats> stats = new HashMap<>();
+        current.cacheByNode.forEach((node, cache) ->
+                stats.merge(current.metadataByNode.get(node).getId(), cache.getStats(), CacheStats::plus));
+        return stats;
+    }
+
+    /**
+     * @return the nodes registered with the ID, one per scenario class
+     */
+    Collection<Node<?, ?>> getNodes(NodeId nodeId) {
+        return snapshot.getNodes(nodeId);
+    }
+
+    Set<Class<?>> getScenarioClasses(NodeId nodeId) {
+        Map<Class<?>, Node<?, ?>> scenarioMap = snapshot.nodeRegistryMap.get(nodeId);
+        return scenarioMap != null ? scenarioMap.keySet() : Collections.emptySet();
+    }
+
+    /**
+     * An immutable set of registered nodes, with the nodes resolved so far for every scenario class.
+     */
+    static final class Snapshot {
+
+        private static final Object NONE = new Object();
+
+        private final long version = VERSIONS.incrementAndGet();
+
+        private final Map<NodeId, Map<Class<?>, Node<?, ?>>> nodeRegistryMap;
+
+        private final Map<Node<?, ?>, NodeMetadata> metadataByNode;
+
+        private final Map<Node<?, ?>, NodeCache> cacheByNode;
+
+        private final Map<Node<?, ?>, NodeLimiter> limiterByNode;
+
+        private final ClassValue<Map<NodeId, Object>> resolved = new ClassValue<>() {
+            @Override
+            protected Map<NodeId, Object> computeValue(Class<?> scenarioClass) {
+                return new ConcurrentHashMap<>();
             }
+        };
+
+        private Snapshot(Map<NodeId, Map<Class<?>, Node<?, ?>>> nodeMap, Map<Node<?, ?>, NodeMetadata> metadataMap,
+                         Map<Node<?, ?>, NodeCache> cacheMap, Map<Node<?, ?>, NodeLimiter> limiterMap) {
+            nodeMap.replaceAll((nodeId, scenarioMap) -> Collections.unmodifiableMap(scenarioMap));
+            this.nodeRegistryMap = Collections.unmodifiableMap(nodeMap);
+            this.metadataByNode = Collections.unmodifiableMap(metadataMap);
+            this.cacheByNode = Collections.unmodifiableMap(cacheMap);
+            this.limiterByNode = Collections.unmodifiableMap(limiterMap);
+        }
+
+        private Map<NodeId, Map<Class<?>, Node<?, ?>>> copyNodes() {
+            Map<NodeId, Map<Class<?>, Node<?, ?>>> nodeMap = new HashMap<>();
+            nodeRegistryMap.forEach((nodeId, scenarioMap) -> nodeMap.put(nodeId, new HashMap<>(scenarioMap)));
+            return nodeMap;
+        }
+
+        long getVersion() {
+            return version;
+        }
+
+        /**
+         * Resolves the node with the ID that applies to the scenario class.
+         */
+        @SuppressWarnings("unchecked")
+        <S> Optional<Node<S, ?>> get(NodeId nodeId, Class<S> scenarioClass) {
+            Map<NodeId, Object> nodes = resolved.get(scenarioClass);
+            Object node = nodes.get(nodeId);
+            if (node == null) {
+                node = nodes.computeIfAbsent(nodeId, id -> resolve(id, scenarioClass));
+            }
+            return node != NONE ? Optional.of((Node<S, ?>) node) : Optional.empty();
+        }
+
+        /**
+         * Walks the scenario hierarchy breadth first, superclass before interfaces, and returns the node registered
+         * for the first type found.
+         */
+        private Object resolve(NodeId nodeId, Class<?> scenarioClass) {
+            Map<Class<?>, Node<?, ?>> scenarioMap = nodeRegistryMap.get(nodeId);
+            if (scenarioMap == null) {
+                return NONE;
+            }
+            Deque<Class<?>> pending = new ArrayDeque<>();
+            Set<Class<?>> visited = new HashSet<>();
+            pending.add(scenarioClass);
+            while (!pending.isEmpty()) {
+                Class<?> type = pending.poll();
+                if (!visited.add(type)) {
+                    continue;
+                }
+                Node<?, ?> node = scenarioMap.get(type);
+                if (node != null) {
+                    return node;
+                }
+                if (type.getSuperclass() != null) {
+                    pending.add(type.getSuperclass());
+                }
+                pending.addAll(Arrays.asList(type.getInterfaces()));
+            }
+            Node<?, ?> objectNode = scenarioMap.get(Object.class);
+            return objectNode != null ? objectNode : NONE;
+        }
+
+        NodeMetadata getMetadata(Node<?, ?> node) {
+            return metadataByNode.get(node);
+        }
+
+        NodeCache getCache(Node<?, ?> node) {
+            return cacheByNode.get(node);
+        }
+
+        NodeLimiter getLimiter(Node<?, ?> node) {
+            return limiterByNode.get(node);
+        }
+
+        Collection<Node<?, ?>> getNodes(NodeId nodeId) {
+            Map<Class<?>, Node<?, ?>> scenarioMap = nodeRegistryMap.get(nodeId);
+            return scenarioMap != null ? scenarioMap.values() : Collections.emptyList();
         }
-        return Optional.empty();
     }
 }
@@ -0,0 +1,65 @@
+package com.dpf.moira;
+
+import java.util.Objects;
+
+/**
+ * How an execution ended: the terminal node reached and the result it decided.
+ */
+public final class Outcome {
+
+    private final String nodeId;
+    private final Enum<?> result;
+
+    Outcome(String nodeId, Enum<?> result) {
+        this.nodeId = nodeId;
+        this.result = result;
+    }
+
+    /**
+     * @return the ID of the terminal node
+     */
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    /**
+     * @return the result decided by the terminal node, which may be {@code null}
+     */
+    public Enum<?> getResult() {
+        return result;
+    }
+
+    /**
+     * @param resultClass the result enum of the terminal node
+     * @return the result decided by the terminal node, which may be {@code null}
+     * @throws IllegalArgumentException when the result is not a constant of {@code resultClass}
+     */
+    public <E extends Enum<E>> E getResult(Class<E> resultClass) {
+        if (result == null) {
+            return null;
+        }
+        if (!resultClass.isInstance(result)) {
+            throw new IllegalArgumentException(String.format("Result %s of node %s is not a %s",
+                    result, nodeId, resultClass.getName()));
+        }
+        return resultClass.cast(result);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        Outcome outcome = (Outcome) o;
+        return nodeId.equals(outcome.nodeId) && Objects.equals(result, outcome.result);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(nodeId, result);
+    }
+
+    @Override
+    public String toString() {
+        return nodeId + "=" + result;
+    }
+}
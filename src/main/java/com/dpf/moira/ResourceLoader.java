@@ -3,8 +3,12 @@ package com.dpf.moira;
 import com.dpf.moira.yaml.WorkFlowYml;
 import org.apache.commons.codec.digest.DigestUtils;
 import org.apache.commons.io.FileUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.yaml.snakeyaml.Yaml;
 
+import java.io.ByteArrayInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
@@ -14,69 +18,280 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.stream.Collectors;
 
+/**
+ * Loads the workflow files of a directory and tracks them to reload only the ones that change.
+ * <p>
+ * Files are read, hashed and parsed in parallel, each of them read once. The state of the loaded files is an immutable
+ * snapshot replaced at the end of every reload, so reloads are serialized but never block readers. A file that cannot
+ * be parsed keeps the workflow it had before, and is not parsed again until it changes.
+ */
 class ResourceLoader {
 
-    private final Map<String, String> fileHashes;
-    private final Map<String, WorkFlowYml> cache;
+    private static final Logger logger = LoggerFactory.getLogger(ResourceLoader.class);
+
+    private volatile Map<String, FileState> files;
 
     ResourceLoader() {
-        this.fileHashes = new HashMap<>();
-        this.cache = new HashMap<>();
+        this.files = Collections.emptyMap();
     }
 
+    /**
+     * @throws IllegalArgumentException when a workflow file cannot be parsed
+     */
     List<WorkFlowYml> loadWorkflows(String location) {
+        return loadWorkflows(resolveDirectory(location));
+    }
 
+    /**
+     * @throws IllegalArgumentException when a workflow file cannot be parsed
+     */
+    synchronized List<WorkFlowYml> loadWorkflows(Path directory) {
+        Changes changes = reloadWorkflows(directory);
+        if (!changes.getFailed().isEmpty()) {
+            throw new IllegalArgumentException("Invalid workflow files:\n" + String.join("\n", changes.getFailed()));
+        }
+        accept(changes, Set.of());
         List<WorkFlowYml> workflows = new ArrayList<>();
+        files.values().stream()
+                .filter(state -> state.workflow != null)
+                .forEach(state -> workflows.add(state.workflow));
+        return workflows;
+    }
+
+    /**
+     * Checks the workflow files for changes since the last load. Only files whose modification time or size changed
+     * are read, and only those whose content changed are parsed again. The files are compared with the state saved by
+     * the last {@link #accept(Changes, Set)}, so the changes of a reload that is not accepted are seen again by the
+     * next one.
+     *
+     * @param location the classpath location of the workflow files
+     * @return the workflows that were added or changed, the IDs of the workflows that are gone and the files that could
+     * not be parsed
+     */
+    Changes reloadWorkflows(String location) {
+        return reloadWorkflows(resolveDirectory(location));
+    }
+
+    /**
+     * Same as {@link #reloadWorkflows(String)} for a directory of the file system.
+     */
+    synchronized Changes reloadWorkflows(Path directory) {
+        Map<String, FileState> previousFiles = this.files;
+        Collection<File> currentFiles = directory != null
+                ? FileUtils.listFiles(directory.toFile(), new String[]{"yml"}, true)
+                : Collections.emptyList();
+        List<LoadedFile> loadedFiles = currentFiles.parallelStream()
+                .map(file -> load(file.toPath(), previousFiles.get(file.toPath().toString())))
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+
+        Map<String, FileState> currentStates = new HashMap<>();
+        List<WorkFlowYml> changed = new ArrayList<>();
+        Set<String> removed = new HashSet<>();
+        List<String> failed = new ArrayList<>();
+        for (LoadedFile loaded : loadedFiles) {
+            currentStates.put(loaded.key, loaded.state);
+            if (loaded.error != null) {
+                failed.add(loaded.key + ": " + loaded.error);
+            }
+            if (!loaded.changed) {
+                continue;
+            }
+            changed.add(loaded.state.workflow);
+            if (loaded.previous != null && loaded.previous.workflow != null
+                    && !loaded.previous.workflow.getId().equals(loaded.state.workflow.getId())) {
+                removed.add(loaded.previous.workflow.getId());
+            }
+        }
+        previousFiles.forEach((key, state) -> {
+            if (!currentStates.containsKey(key) && state.workflow != null) {
+                removed.add(state.workflow.getId());
+            }
+        });
+        changed.forEach(workflow -> removed.remove(workflow.getId()));
 
+        return new Changes(changed, removed, failed, currentStates, previousFiles);
+    }
+
+    /**
+     * Saves the state of the files read by a reload once its changes are applied. The files of the rejected workflows
+     * keep their previous state, so that the next reload reads them again.
+     *
+     * @param rejected the IDs of the changed workflows that were not applied
+     */
+    synchronized void accept(Changes changes, Set<String> rejected) {
+        Map<String, FileState> accepted = new HashMap<>(changes.files);
+        changes.files.forEach((key, state) -> {
+            if (state.workflow == null || !rejected.contains(state.workflow.getId())) {
+                return;
+            }
+            FileState previous = changes.previousFiles.get(key);
+            if (previous != null) {
+                accepted.put(key, previous);
+            } else {
+                accepted.remove(key);
+            }
+        });
+        this.files = Collections.unmodifiableMap(accepted);
+    }
+
+    /**
+     * Loads a file unless it is unchanged since its previous load. A file that cannot be read keeps its previous
+     * state.
+     *
+     * @return the state of the file, or {@code null} when it cannot be read and was never loaded
+     */
+    private LoadedFile load(Path filePath, FileState previous) {
+        String key = filePath.toString();
+        try {
+            long lastModified = Files.getLastModifiedTime(filePath).toMillis();
+            long size = Files.size(filePath);
+            if (previous != null && previous.lastModified == lastModified && previous.size == size) {
+                return new LoadedFile(key, previous, null, false, null);
+            }
+
+            byte[] content = Files.readAllBytes(filePath);
+            String hash = DigestUtils.sha256Hex(content);
+            if (previous != null && previous.hash.equals(hash)) {
+                FileState state = new FileState(lastModified, size, hash, previous.workflow);
+                return new LoadedFile(key, state, null, false, null);
+            }
+
+            WorkFlowYml workflowYml;
+            try (InputStream inputStream = new ByteArrayInputStream(content)) {
+                workflowYml = readWorkflowYml(inputStream);
+            } catch (RuntimeException e) {
+                return failed(key, new FileState(lastModified, size, hash, workflowOf(previous)), e.getMessage());
+            }
+            if (workflowYml == null || workflowYml.getId() == null) {
+                return failed(key, new FileState(lastModified, size, hash, workflowOf(previous)),
+                        workflowYml == null ? "empty document" : "workflow without id");
+            }
+            return new LoadedFile(key, new FileState(lastModified, size, hash, workflowYml), previous, true, null);
+        } catch (IOException e) {
+            logger.warn("Failed to read workflow file {}: {}", filePath, e.getMessage());
+            return previous != null ? new LoadedFile(key, previous, null, false, null) : null;
+        }
+    }
+
+    /**
+     * Keeps the workflow the file had before it could not be parsed, when it had one, until it changes again.
+     */
+    private static LoadedFile failed(String key, FileState state, String error) {
+        return new LoadedFile(key, state, null, false, error);
+    }
+
+    private static WorkFlowYml workflowOf(FileState state) {
+        return state != null ? state.workflow : null;
+    }
+
+    private Path resolveDirectory(String location) {
         try {
             URL resourceURL = getClass().getClassLoader().getResource(location);
             if (resourceURL != null) {
                 URI resourceURI = resourceURL.toURI();
-                Path path = Paths.get(resourceURI);
-
-                FileUtils.listFiles(path.toFile(), new String[]{"yml"}, true)
-                        .forEach(file -> {
-                            try {
-                                Path filePath = file.toPath();
-                                if (hasFileChanged(filePath)) {
-                                    try (InputStream inputStream = Files.newInputStream(filePath)) {
-                                        WorkFlowYml workflowYml = readWorkflowYml(inputStream);
-                                        fileHashes.put(filePath.toString(), computeFileHash(filePath));
-                                        cache.put(filePath.toString(), workflowYml);
-                                        workflows.add(workflowYml);
-                                    } catch (IOException e) {
-                                        System.err.println("Failed to read YAML file: " + filePath + " " + e.getMessage());
-                                    }
-                                } else {
-                                    workflows.add(cache.get(filePath.toString()));
-                                }
-                            } catch (IOException e) {
-                                System.err.println("Failed to check file change: " + file + " " + e.getMessage());
-                            }
-                        });
+                return Paths.get(resourceURI);
             }
         } catch (URISyntaxException e) {
-            System.err.println("Failed to load YAML resources: " + e.getMessage());
+            logger.warn("Failed to resolve workflow location {}: {}", location, e.getMessage());
         }
-
-        return workflows;
+        return null;
     }
 
+    /**
+     * Parsers are not thread safe, so every file gets its own rather than one kept by each thread of the common pool,
+     * which would outlive the application and pin its class loader.
+     */
     private WorkFlowYml readWorkflowYml(InputStream inputStream) {
-        Yaml yaml = new Yaml();
-        return yaml.loadAs(inputStream, WorkFlowYml.class);
+        return new Yaml().loadAs(inputStream, WorkFlowYml.class);
     }
 
-    private boolean hasFileChanged(Path filePath) throws IOException {
-        String currentHash = computeFileHash(filePath);
-        return !currentHash.equals(fileHashes.get(filePath.toString()));
+    /**
+     * Workflows added, changed or removed between two loads, and the files that could not be parsed.
+     */
+    static final class Changes {
+
+        private final List<WorkFlowYml> changed;
+        private final Set<String> removed;
+        private final List<String> failed;
+        private final Map<String, FileState> files;
+        private final Map<String, FileState> previousFiles;
+
+        private Changes(List<WorkFlowYml> changed, Set<String> removed, List<String> failed,
+                        Map<String, FileState> files, Map<String, FileState> previousFiles) {
+            this.changed = Collections.unmodifiableList(changed);
+            this.removed = Collections.unmodifiableSet(removed);
+            this.failed = Collections.unmodifiableList(failed);
+            this.files = files;
+            this.previousFiles = previousFiles;
+        }
+
+        List<WorkFlowYml> getChanged() {
+            return changed;
+        }
+
+        Set<String> getRemoved() {
+            return removed;
+        }
+
+        /**
+         * @return the files that could not be parsed, each followed by the error
+         */
+        List<String> getFailed() {
+            return failed;
+        }
+
+        boolean isEmpty() {
+            return changed.isEmpty() && removed.isEmpty();
+        }
     }
 
-    private String computeFileHash(Path filePath) throws IOException {
-        return DigestUtils.sha256Hex(Files.readAllBytes(filePath));
+    private static final class LoadedFile {
+
+        private final String key;
+        private final FileState state;
+        private final FileState previous;
+        private final boolean changed;
+        private final String error;
+
+        /**
+         * @param previous the state the file had before it changed, or {@code null} when it is new or unchanged
+         * @param error    why the file could not be parsed, or {@code null} when it was
+         */
+        private LoadedFile(String key, FileState state, FileState previous, boolean changed, String error) {
+            this.key = key;
+            this.state = state;
+            this.previous = previous;
+            this.changed = changed;
+            this.error = error;
+        }
+    }
+
+    private static final class FileState {
+
+        private final long lastModified;
+        private final long size;
+        private final String hash;
+        /**
+         * The workflow of the file, or {@code null} when it was never parsed.
+         */
+        private final WorkFlowYml workflow;
+
+        private FileState(long lastModified, long size, String hash, WorkFlowYml workflow) {
+            this.lastModified = lastModified;
+            this.size = size;
+            this.hash = hash;
+            this.workflow = workflow;
+        }
     }
 }
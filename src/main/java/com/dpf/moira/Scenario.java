@@ -4,10 +4,34 @@ public class Scenario<S> {
 
     private final String executionId;
     private final S value;
+    private final boolean hasDeadline;
+    private final long deadlineNanos;
 
     Scenario(String executionId, S value) {
+        this(executionId, value, false, 0);
+    }
+
+    private Scenario(String executionId, S value, boolean hasDeadline, long deadlineNanos) {
         this.executionId = executionId;
         this.value = value;
+        this.hasDeadline = hasDeadline;
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    /**
+     * @param timeoutNanos how long the execution may run, or {@code 0} when it is not bounded
+     */
+    static <S> Scenario<S> of(String executionId, S value, long timeoutNanos) {
+        return timeoutNanos > 0
+                ? new Scenario<>(executionId, value, true, System.nanoTime() + timeoutNanos)
+                : new Scenario<>(executionId, value);
+    }
+
+    /**
+     * @return a scenario of the same execution, with the same deadline, holding another value
+     */
+    <T> Scenario<T> with(T value) {
+        return new Scenario<>(executionId, value, hasDeadline, deadlineNanos);
     }
 
     public String getExecutionId() {
@@ -18,4 +42,34 @@ public class Scenario<S> {
         return value;
     }
 
+    /**
+     * @return whether the execution has to complete before a deadline, set by the timeout of its workflow
+     */
+    public boolean hasDeadline() {
+        return hasDeadline;
+    }
+
+    /**
+     * @return the {@link System#nanoTime()} by which the execution has to complete, meaningful only when it
+     * {@link #hasDeadline() has a deadline}
+     */
+    public long getDeadlineNanos() {
+        return deadlineNanos;
+    }
+
+    /**
+     * @return the nanoseconds left before the deadline, negative once it has passed, or {@link Long#MAX_VALUE} when
+     * the execution has no deadline
+     */
+    public long getRemainingNanos() {
+        return hasDeadline ? deadlineNanos - System.nanoTime() : Long.MAX_VALUE;
+    }
+
+    /**
+     * @return whether the deadline of the execution has passed, so long-running nodes can give up early
+     */
+    public boolean isExpired() {
+        return hasDeadline && deadlineNanos - System.nanoTime() <= 0;
+    }
+
 }
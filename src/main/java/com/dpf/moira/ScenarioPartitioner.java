@@ -0,0 +1,29 @@
+package com.dpf.moira;
+
+import java.util.List;
+
+/**
+ * Gives each branch of a fork its own copy of the scenario, so branches running in parallel do not share state, and
+ * merges the copies back once the branches are joined.
+ * <p>
+ * Implementations need a public no-args constructor and must be thread safe.
+ *
+ * @param <S> the scenario type
+ */
+public interface ScenarioPartitioner<S> {
+
+    /**
+     * @param scenario the scenario of the execution
+     * @param branch   the ID of the node the branch starts at
+     * @return the scenario the branch runs on
+     */
+    S partition(S scenario, String branch);
+
+    /**
+     * Merges the scenarios of the joined branches into the scenario of the execution. With {@code ANY} and
+     * {@code FIRST} joins only the scenario of the winning branch is given.
+     */
+    default void merge(S scenario, List<S> branches) {
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.dpf.moira;
+
+import com.dpf.moira.properties.SchedulerType;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import reactor.core.scheduler.Scheduler;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+final class SchedulerFactory {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchedulerFactory.class);
+
+    private SchedulerFactory() {
+    }
+
+    /**
+     * Creates the scheduler of the given type. Schedulers created here, unlike Reactor's shared ones, must be
+     * disposed by the caller.
+     */
+    static Scheduler create(SchedulerType type) {
+        switch (type) {
+            case PARALLEL:
+                return Schedulers.parallel();
+            case VIRTUAL_THREADS:
+                return createVirtualThreadScheduler();
+            case BOUNDED_ELASTIC:
+            default:
+                return Schedulers.boundedElastic();
+        }
+    }
+
+    static boolean isShared(Scheduler scheduler) {
+        return scheduler == Schedulers.parallel() || scheduler == Schedulers.boundedElastic();
+    }
+
+    /**
+     * Looks up {@code Executors.newVirtualThreadPerTaskExecutor} reflectively, so the library keeps running on JDKs
+     * without virtual threads.
+     */
+    private static Scheduler createVirtualThreadScheduler() {
+        try {
+            ExecutorService executor = (ExecutorService) Executors.class
+                    .getMethod("newVirtualThreadPerTaskExecutor")
+                    .invoke(null);
+            return Schedulers.fromExecutorService(executor, "moira-virtual");
+        } catch (ReflectiveOperationException e) {
+            logger.warn("Virtual threads are not available on Java {}, using the bounded elastic scheduler instead",
+                    System.getProperty("java.version"));
+            return Schedulers.boundedElastic();
+        }
+    }
+}
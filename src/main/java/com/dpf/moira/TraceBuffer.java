@@ -0,0 +1,51 @@
+package com.dpf.moira;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A fixed size ring of the most recent execution traces. Adding a trace claims a slot with a single atomic increment
+ * and never blocks, overwriting the oldest trace once the ring is full.
+ */
+final class TraceBuffer {
+
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    private final AtomicReferenceArray<ExecutionTrace> traces;
+    private final int mask;
+    private final AtomicLong sequence = new AtomicLong();
+
+    /**
+     * @param capacity the number of traces kept, rounded up to a power of two
+     */
+    TraceBuffer(int capacity) {
+        if (capacity < 1) {
+            throw new IllegalArgumentException("capacity must be greater than zero");
+        }
+        int size = capacity >= MAXIMUM_CAPACITY ? MAXIMUM_CAPACITY : Integer.highestOneBit(capacity - 1) << 1;
+        this.traces = new AtomicReferenceArray<>(Math.max(size, 1));
+        this.mask = traces.length() - 1;
+    }
+
+    void add(ExecutionTrace trace) {
+        traces.lazySet((int) (sequence.getAndIncrement() & mask), trace);
+    }
+
+    /**
+     * @return the traces in the ring, oldest first. Traces added while copying may or may not be included
+     */
+    List<ExecutionTrace> snapshot() {
+        long end = sequence.get();
+        long start = Math.max(0, end - traces.length());
+        List<ExecutionTrace> snapshot = new ArrayList<>((int) (end - start));
+        for (long position = start; position < end; position++) {
+            ExecutionTrace trace = traces.get((int) (position & mask));
+            if (trace != null) {
+                snapshot.add(trace);
+            }
+        }
+        return snapshot;
+    }
+}
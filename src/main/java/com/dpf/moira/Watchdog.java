@@ -0,0 +1,74 @@
+package com.dpf.moira;
+
+import reactor.core.Disposable;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Interrupts the thread running a node once its timeout has elapsed, so a node blocked on I/O or a lock gives its
+ * thread back. The node keeps running on the calling thread, the timer runs on the parallel scheduler, as the
+ * timeouts of Reactor do.
+ */
+final class Watchdog implements Runnable {
+
+    private static final int RUNNING = 0;
+    private static final int STOPPED = 1;
+    private static final int INTERRUPTING = 2;
+    private static final int INTERRUPTED = 3;
+
+    private final Thread thread = Thread.currentThread();
+    private final boolean wasInterrupted = thread.isInterrupted();
+    private final AtomicInteger state = new AtomicInteger(RUNNING);
+    private final Runnable onTimeout;
+    private final Disposable timer;
+
+    Watchdog(long timeoutNanos) {
+        this(timeoutNanos, null);
+    }
+
+    /**
+     * @param onTimeout run on the timer thread right before the interrupt, or {@code null}
+     */
+    Watchdog(long timeoutNanos, Runnable onTimeout) {
+        this.onTimeout = onTimeout;
+        this.timer = Schedulers.parallel().schedule(this, timeoutNanos, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public void run() {
+        if (state.compareAndSet(RUNNING, INTERRUPTING)) {
+            try {
+                if (onTimeout != null) {
+                    onTimeout.run();
+                }
+            } finally {
+                thread.interrupt();
+                state.set(INTERRUPTED);
+            }
+        }
+    }
+
+    /**
+     * Stops the watchdog once the node has returned or thrown, and must be called on every path. When it has fired,
+     * its interrupt is cleared so it does not leak into whatever the thread runs next, while an interrupt the thread
+     * already had when the watchdog started is kept.
+     *
+     * @return whether the node timed out
+     */
+    boolean stop() {
+        if (state.compareAndSet(RUNNING, STOPPED)) {
+            timer.dispose();
+            return false;
+        }
+        while (state.get() != INTERRUPTED) {
+            Thread.onSpinWait();
+        }
+        Thread.interrupted();
+        if (wasInterrupted) {
+            thread.interrupt();
+        }
+        return true;
+    }
+}
@@ -1,24 +1,274 @@
 package com.dpf.moira;
 
+import com.dpf.moira.cache.CacheKeyExtractor;
 import com.dpf.moira.entity.Workflow;
 import com.dpf.moira.entity.WorkflowId;
+import com.dpf.moira.properties.ConfiguredClasses;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 
 class WorkFlowRegistry {
 
-    private final Map<WorkflowId, Workflow> decisionTreeRegistryMap;
+    private static final Logger logger = LoggerFactory.getLogger(WorkFlowRegistry.class);
 
-    WorkFlowRegistry(Collection<Workflow> workflows) {
-        decisionTreeRegistryMap = workflows.stream()
+    private static final AtomicLong VERSIONS = new AtomicLong();
+
+    private static final int MAX_MISSING = 10_000;
+
+    private final Map<WorkflowId, CompiledWorkflow> decisionTreeRegistryMap;
+
+    private final NodeRegistry nodeRegistry;
+
+    private final Function<WorkflowId, Optional<Workflow>> loader;
+
+    private final Map<WorkflowId, CompiledWorkflow> loaded = new ConcurrentHashMap<>();
+
+    private final Set<WorkflowId> missing = ConcurrentHashMap.newKeySet();
+
+    WorkFlowRegistry(Collection<Workflow> workflows, NodeRegistry nodeRegistry) {
+        this(workflows, nodeRegistry, null);
+    }
+
+    /**
+     * @param loader loads the workflows missing from {@code workflows} on first use, or {@code null} when all of them
+     *               are given up front
+     */
+    WorkFlowRegistry(Collection<Workflow> workflows, NodeRegistry nodeRegistry,
+                     Function<WorkflowId, Optional<Workflow>> loader) {
+        this.nodeRegistry = nodeRegistry;
+        this.loader = loader;
+        Map<WorkflowId, Workflow> declared = workflows.stream()
                 .collect(Collectors.toUnmodifiableMap(Workflow::getId, Function.identity()));
+        this.decisionTreeRegistryMap = workflows.stream()
+                .collect(Collectors.toUnmodifiableMap(Workflow::getId,
+                        workflow -> compile(workflow, calledIn(declared), nodeRegistry)));
+    }
+
+    private WorkFlowRegistry(Map<WorkflowId, CompiledWorkflow> workflows, NodeRegistry nodeRegistry,
+                             Function<WorkflowId, Optional<Workflow>> loader) {
+        this.nodeRegistry = nodeRegistry;
+        this.loader = loader;
+        this.decisionTreeRegistryMap = Collections.unmodifiableMap(workflows);
+    }
+
+    /**
+     * Creates a new registry with the given workflows added or replaced and the removed ones dropped. The workflows
+     * calling a changed or removed workflow are compiled again, keeping their previous version when they cannot be.
+     * Execution plans of the other untouched workflows are shared with this registry, which is left unchanged.
+     *
+     * @param rejected collects the IDs of the changed workflows that cannot be compiled, which keep their previous
+     *                 version
+     */
+    WorkFlowRegistry update(Collection<Workflow> changed, Collection<WorkflowId> removed,
+                            Collection<WorkflowId> rejected) {
+        Map<WorkflowId, CompiledWorkflow> workflows = new HashMap<>(decisionTreeRegistryMap);
+        workflows.putAll(loaded);
+        for (WorkflowId workflowId : removed) {
+            workflows.remove(workflowId);
+        }
+        Map<WorkflowId, Workflow> declared = new HashMap<>();
+        workflows.forEach((workflowId, compiled) -> declared.put(workflowId, compiled.declared));
+        changed.forEach(workflow -> declared.put(workflow.getId(), workflow));
+
+        Function<WorkflowId, Optional<Workflow>> called = calledIn(declared);
+        Map<WorkflowId, CompiledWorkflow> compiledChanged = new HashMap<>();
+        boolean retry = true;
+        while (retry) {
+            retry = false;
+            compiledChanged.clear();
+            for (Workflow workflow : changed) {
+                if (rejected.contains(workflow.getId())) {
+                    continue;
+                }
+                try {
+                    compiledChanged.put(workflow.getId(), compile(workflow, called, nodeRegistry));
+                } catch (IllegalArgumentException e) {
+                    logger.error("Keeping previous version of workflow {}: {}", workflow.getId().getValue(),
+                            e.getMessage());
+                    rejected.add(workflow.getId());
+                    CompiledWorkflow previous = workflows.get(workflow.getId());
+                    if (previous != null) {
+                        declared.put(workflow.getId(), previous.declared);
+                    } else {
+                        declared.remove(workflow.getId());
+                    }
+                    retry = true;
+                }
+            }
+        }
+
+        Set<WorkflowId> touched = new HashSet<>(removed);
+        touched.addAll(compiledChanged.keySet());
+        for (Map.Entry<WorkflowId, CompiledWorkflow> entry : workflows.entrySet()) {
+            if (Collections.disjoint(entry.getValue().called, touched) || touched.contains(entry.getKey())) {
+                continue;
+            }
+            try {
+                entry.setValue(compile(entry.getValue().declared, called, nodeRegistry));
+            } catch (IllegalArgumentException e) {
+                logger.error("Keeping previous version of workflow {}: {}", entry.getKey().getValue(), e.getMessage());
+            }
+        }
+        workflows.putAll(compiledChanged);
+        return new WorkFlowRegistry(workflows, nodeRegistry, loader);
+    }
+
+    /**
+     * @return a lookup of the workflows that can be called, the given ones or else the ones of the loader
+     */
+    private Function<WorkflowId, Optional<Workflow>> calledIn(Map<WorkflowId, Workflow> workflows) {
+        return workflowId -> {
+            Workflow workflow = workflows.get(workflowId);
+            if (workflow != null || loader == null) {
+                return Optional.ofNullable(workflow);
+            }
+            return loader.apply(workflowId);
+        };
     }
 
+    /**
+     * Inlines the workflows called by the workflow, and compiles it for the scenario classes of its start node.
+     */
+    private static CompiledWorkflow compile(Workflow workflow, Function<WorkflowId, Optional<Workflow>> lookup,
+                                            NodeRegistry nodeRegistry) {
+        Set<WorkflowId> called = new HashSet<>();
+        Workflow inlined = WorkflowInliner.inline(workflow, workflowId -> {
+            called.add(workflowId);
+            return lookup.apply(workflowId);
+        });
+        CompiledWorkflow compiled = new CompiledWorkflow(workflow, inlined, called, VERSIONS.incrementAndGet(),
+                cacheKeyOf(workflow));
+        for (Class<?> scenarioClass : nodeRegistry.getScenarioClasses(inlined.getRegisteredNode(inlined.getStart()))) {
+            compiled.plans.put(scenarioClass, compiled.compile(nodeRegistry, scenarioClass));
+        }
+        return compiled;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static CacheKeyExtractor<Object> cacheKeyOf(Workflow workflow) {
+        return newInstance(workflow.getCacheKey(), CacheKeyExtractor.class, "cache key extractor", workflow);
+    }
+
+    /**
+     * Instantiates a class named by a workflow, loaded through the context class loader.
+     *
+     * @return the instance, or {@code null} when no class is named
+     * @throws IllegalArgumentException when the class cannot be instantiated or is not a {@code type}
+     */
+    static <T> T newInstance(String className, Class<T> type, String description, Workflow workflow) {
+        if (className == null || className.isBlank()) {
+            return null;
+        }
+        return ConfiguredClasses.newInstance(className.trim(), type,
+                String.format("Invalid %s %s for workflow %s",
+                        description,
+                        className,
+                        workflow.getId().getValue()));
+    }
+
+    /**
+     * @return the workflow as declared, with its calls to other workflows
+     */
     Optional<Workflow> get(WorkflowId workFlowId) {
-        return Optional.ofNullable(decisionTreeRegistryMap.get(workFlowId));
+        return Optional.ofNullable(lookup(workFlowId)).map(compiled -> compiled.declared);
+    }
+
+    /**
+     * Finds a workflow, loading it on first use. The IDs the loader has no workflow for are remembered, up to
+     * {@value #MAX_MISSING} of them, so they are not looked up again until the registry is updated.
+     */
+    private CompiledWorkflow lookup(WorkflowId workFlowId) {
+        CompiledWorkflow compiled = decisionTreeRegistryMap.get(workFlowId);
+        if (compiled != null || loader == null) {
+            return compiled;
+        }
+        compiled = loaded.get(workFlowId);
+        if (compiled == null && !missing.contains(workFlowId)) {
+            compiled = loaded.computeIfAbsent(workFlowId, id -> loader.apply(id)
+                    .map(workflow -> compile(workflow, this::findDeclared, nodeRegistry))
+                    .orElse(null));
+            if (compiled == null) {
+                if (missing.size() >= MAX_MISSING) {
+                    missing.clear();
+                }
+                missing.add(workFlowId);
+            }
+        }
+        return compiled;
+    }
+
+    /**
+     * Finds a workflow called by a workflow being loaded. Workflows called are not kept, only the workflow loaded is.
+     */
+    private Optional<Workflow> findDeclared(WorkflowId workflowId) {
+        CompiledWorkflow compiled = decisionTreeRegistryMap.get(workflowId);
+        if (compiled == null) {
+            compiled = loaded.get(workflowId);
+        }
+        return compiled != null ? Optional.of(compiled.declared) : loader.apply(workflowId);
+    }
+
+    /**
+     * Returns the execution plan of a workflow for the given scenario class. Plans for the scenario classes of the
+     * registered start nodes are compiled up front, any other scenario class is compiled on first use. Plans compiled
+     * before a node was registered or unregistered are compiled again.
+     */
+    Optional<ExecutionPlan> getPlan(WorkflowId workFlowId, Class<?> scenarioClass) {
+        CompiledWorkflow compiled = lookup(workFlowId);
+        if (compiled == null) {
+            return Optional.empty();
+        }
+        ExecutionPlan plan = compiled.plans.get(scenarioClass);
+        long nodesVersion = nodeRegistry.getVersion();
+        if (plan == null || plan.getNodesVersion() != nodesVersion) {
+            plan = compiled.plans.compute(scenarioClass, (c, current) ->
+                    current != null && current.getNodesVersion() == nodesVersion
+                            ? current
+                            : compiled.compile(nodeRegistry, c));
+        }
+        return Optional.of(plan);
+    }
+
+    /**
+     * A workflow with its execution plans by scenario class. Every compilation of a workflow gets a new version.
+     */
+    private static final class CompiledWorkflow {
+
+        private final Workflow declared;
+        private final Workflow workflow;
+        private final Set<WorkflowId> called;
+        private final long version;
+        private final CacheKeyExtractor<Object> cacheKey;
+        private final Map<Class<?>, ExecutionPlan> plans = new ConcurrentHashMap<>();
+
+        /**
+         * @param declared the workflow as declared
+         * @param workflow the workflow with its calls inlined
+         * @param called   the IDs of the workflows inlined, directly or not
+         */
+        private CompiledWorkflow(Workflow declared, Workflow workflow, Set<WorkflowId> called, long version,
+                                 CacheKeyExtractor<Object> cacheKey) {
+            this.declared = declared;
+            this.workflow = workflow;
+            this.called = called;
+            this.version = version;
+            this.cacheKey = cacheKey;
+        }
+
+        private ExecutionPlan compile(NodeRegistry nodeRegistry, Class<?> scenarioClass) {
+            return ExecutionPlan.compile(workflow, version, cacheKey, nodeRegistry, scenarioClass);
+        }
     }
 }
@@ -0,0 +1,62 @@
+package com.dpf.moira;
+
+import com.dpf.moira.yaml.WorkFlowYml;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Validates the YAML workflow files of a directory and compiles them into a binary index that {@link Moira} loads at
+ * startup instead of parsing the files. Meant to run as a build step, for example with the {@code exec-maven-plugin}:
+ * <pre>
+ * java com.dpf.moira.WorkflowCompiler src/main/resources/workflows target/classes/moira-workflows.bin
+ * </pre>
+ */
+public final class WorkflowCompiler {
+
+    private WorkflowCompiler() {
+    }
+
+    public static void main(String[] args) {
+        if (args.length != 2) {
+            System.err.println("Usage: WorkflowCompiler <workflows directory> <index file>");
+            System.exit(2);
+        }
+        try {
+            int count = compile(Paths.get(args[0]), Paths.get(args[1]));
+            System.out.println("Compiled " + count + " workflows into " + args[1]);
+        } catch (IllegalArgumentException | IOException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * Compiles the workflow files of a directory, including subdirectories, into an index file.
+     *
+     * @param directory the directory of the workflow files
+     * @param index     the index file to write
+     * @return the number of workflows compiled
+     * @throws IllegalArgumentException when a workflow is invalid
+     * @throws IOException              when the index cannot be written
+     */
+    public static int compile(Path directory, Path index) throws IOException {
+        if (!Files.isDirectory(directory)) {
+            throw new IllegalArgumentException("Workflows directory not found: " + directory);
+        }
+        List<WorkFlowYml> workflows = new ResourceLoader().loadWorkflows(directory);
+        workflows.sort(Comparator.comparing(WorkFlowYml::getId, Comparator.nullsFirst(Comparator.naturalOrder())));
+
+        List<String> problems = WorkflowValidator.validate(workflows);
+        if (!problems.isEmpty()) {
+            throw new IllegalArgumentException("Invalid workflows:" + System.lineSeparator() + "  "
+                    + String.join(System.lineSeparator() + "  ", problems));
+        }
+        WorkflowIndex.write(workflows, index);
+        return workflows.size();
+    }
+}
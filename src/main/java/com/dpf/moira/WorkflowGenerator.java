@@ -0,0 +1,684 @@
+package com.dpf.moira;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.reflect.Array;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Modifier;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Generates a {@link GeneratedWorkflow} class per execution plan.
+ * <p>
+ * The generated {@code run} method is a loop over a {@code tableswitch} on the slot, where each case calls the bound
+ * node through its concrete class and jumps to the next case through a {@code tableswitch} on the ordinal of the
+ * result. The class is defined as a hidden class on Java 15 and later, so it is unloaded with the plan, and as a
+ * regular class of this package on older versions. Class files are written by hand at version 49, which needs no
+ * stack map frames, so no bytecode library is required.
+ * <p>
+ * Only plans made of synchronous, bound and uncached nodes without timeouts are generated. Before it is used, the
+ * generated code is run along every transition of the plan and checked against the interpreter.
+ */
+final class WorkflowGenerator {
+
+    private static final String SUPER = "com/dpf/moira/GeneratedWorkflow";
+    private static final String STEPS = "com/dpf/moira/GeneratedWorkflow$Steps";
+    private static final String NODE = "com/dpf/moira/Node";
+    private static final String EXECUTE = "(Lcom/dpf/moira/Scenario;)Ljava/lang/Enum;";
+
+    private static final AtomicLong CLASSES = new AtomicLong();
+
+    private static final Method DEFINE_HIDDEN_CLASS = defineHiddenClassMethod();
+
+    private WorkflowGenerator() {
+    }
+
+    /**
+     * @return whether the generated code can run the plan as the interpreter does
+     */
+    static boolean supports(ExecutionPlan plan) {
+        if (plan.hasAsyncNodes() || plan.getTimeout() > 0 || plan.getStart() < 0) {
+            return false;
+        }
+        for (int slot = 0; slot < plan.size(); slot++) {
+            if (plan.getNode(slot) == null || plan.getCache(slot) != null || plan.getLimiter(slot) != null
+                    || plan.getTimeout(slot) > 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @throws IllegalArgumentException when the plan is not {@link #supports(ExecutionPlan) supported} or too large
+     *                                  for a single method
+     * @throws IllegalStateException    when the generated code does not match the plan
+     */
+    static GeneratedWorkflow generate(ExecutionPlan plan, GeneratedWorkflow.Steps steps) {
+        if (!supports(plan)) {
+            throw new IllegalArgumentException("Workflow " + plan.getWorkflow().getId().getValue()
+                    + " has nodes the generated code does not support");
+        }
+        Node<?, ?>[] nodes = new Node<?, ?>[plan.size()];
+        String[] owners = new String[nodes.length];
+        for (int slot = 0; slot < nodes.length; slot++) {
+            nodes[slot] = plan.getNode(slot);
+            owners[slot] = ownerOf(nodes[slot]);
+        }
+        GeneratedWorkflow generated = instantiate(plan, owners, nodes, steps);
+        verify(generated, plan);
+        Probe probe = new Probe(plan);
+        String[] probeOwners = new String[nodes.length];
+        Arrays.fill(probeOwners, NODE);
+        probe.verify(instantiate(plan, probeOwners, probe.nodes, probe));
+        return generated;
+    }
+
+    /**
+     * @param owners the name each node is called through, by slot
+     */
+    private static GeneratedWorkflow instantiate(ExecutionPlan plan, String[] owners, Node<?, ?>[] nodes,
+                                                 GeneratedWorkflow.Steps steps) {
+        String className = SUPER + "$$" + CLASSES.incrementAndGet();
+        try {
+            Class<?> generatedClass = define(write(className, plan, owners));
+            return (GeneratedWorkflow) generatedClass
+                    .getDeclaredConstructor(Node[].class, GeneratedWorkflow.Steps.class)
+                    .newInstance(nodes, steps);
+        } catch (ReflectiveOperationException | LinkageError e) {
+            throw new IllegalStateException("Cannot define the generated class of workflow "
+                    + plan.getWorkflow().getId().getValue(), e);
+        }
+    }
+
+    /**
+     * Checks that the generated code resolves every result of every node to the slot the interpreter resolves it to.
+     */
+    private static void verify(GeneratedWorkflow generated, ExecutionPlan plan) {
+        for (int slot = 0; slot < plan.size(); slot++) {
+            Enum<?>[] results = plan.getNode(slot).getResultClass().getEnumConstants();
+            for (Enum<?> result : results) {
+                int expected = plan.isTerminal(slot) ? -1 : Math.max(plan.next(slot, result), -1);
+                int actual = Math.max(generated.next(slot, result.ordinal()), -1);
+                if (actual != expected) {
+                    throw new IllegalStateException(String.format(
+                            "Generated code of workflow %s goes from %s to slot %d instead of %d on %s",
+                            plan.getWorkflow().getId().getValue(), plan.getNodeId(slot).getValue(),
+                            actual, expected, result));
+                }
+            }
+            if (generated.next(slot, results.length) >= 0) {
+                throw new IllegalStateException(String.format(
+                        "Generated code of workflow %s resolves an unknown result of %s",
+                        plan.getWorkflow().getId().getValue(), plan.getNodeId(slot).getValue()));
+            }
+        }
+    }
+
+    private static Method defineHiddenClassMethod() {
+        try {
+            Class<?> optionClass = Class.forName("java.lang.invoke.MethodHandles$Lookup$ClassOption");
+            return MethodHandles.Lookup.class.getMethod("defineHiddenClass",
+                    byte[].class, boolean.class, Array.newInstance(optionClass, 0).getClass());
+        } catch (ReflectiveOperationException e) {
+            return null;
+        }
+    }
+
+    private static Class<?> define(byte[] bytes) throws ReflectiveOperationException {
+        MethodHandles.Lookup lookup = MethodHandles.lookup();
+        if (DEFINE_HIDDEN_CLASS == null) {
+            return lookup.defineClass(bytes);
+        }
+        try {
+            Object options = Array.newInstance(DEFINE_HIDDEN_CLASS.getParameterTypes()[2].getComponentType(), 0);
+            return ((MethodHandles.Lookup) DEFINE_HIDDEN_CLASS.invoke(lookup, bytes, true, options)).lookupClass();
+        } catch (InvocationTargetException e) {
+            if (e.getCause() instanceof LinkageError) {
+                throw (LinkageError) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * @return the name the generated code calls the node through: its own class when the generated class can link to
+     * it, else {@link Node}
+     */
+    private static String ownerOf(Node<?, ?> node) {
+        Class<?> nodeClass = node.getClass();
+        boolean accessible = Modifier.isPublic(nodeClass.getModifiers())
+                || nodeClass.getPackage() == WorkflowGenerator.class.getPackage();
+        try {
+            if (accessible && Class.forName(nodeClass.getName(), false, WorkflowGenerator.class.getClassLoader()) == nodeClass) {
+                return nodeClass.getName().replace('.', '/');
+            }
+        } catch (ClassNotFoundException | LinkageError e) {
+            // not visible from the class loader of the generated class
+        }
+        return NODE;
+    }
+
+    private static byte[] write(String className, ExecutionPlan plan, String[] owners) {
+        ConstantPool pool = new ConstantPool();
+        int thisClass = pool.classRef(className);
+        int superClass = pool.classRef(SUPER);
+
+        Code constructor = new Code();
+        constructor.op(0x2A).op(0x2B).op(0x2C)
+                .op(0xB7).u2(pool.methodRef(SUPER, "<init>", "([L" + NODE + ";L" + STEPS + ";)V"))
+                .op(0xB1);
+
+        Code run = writeRun(plan, owners, pool);
+        Code next = writeNext(plan, pool);
+
+        Bytes out = new Bytes();
+        out.u4(0xCAFEBABE).u2(0).u2(49);
+        List<byte[]> methods = List.of(
+                method(pool, 0x0001, "<init>", "([L" + NODE + ";L" + STEPS + ";)V", constructor, 3, 3),
+                method(pool, 0x0000, "run", "(Lcom/dpf/moira/Scenario;Ljava/lang/Object;)Ljava/lang/Enum;", run, 6, 6),
+                method(pool, 0x0000, "next", "(II)I", next, 2, 3));
+        pool.writeTo(out);
+        out.u2(0x0010 | 0x0020).u2(thisClass).u2(superClass).u2(0).u2(0);
+        out.u2(methods.size());
+        methods.forEach(out::bytes);
+        out.u2(0);
+        return out.toByteArray();
+    }
+
+    /**
+     * Writes {@code run(scenario, cursor)}, with locals {@code 3} holding the slot, {@code 4} the result and
+     * {@code 5} the ordinal of the result.
+     */
+    private static Code writeRun(ExecutionPlan plan, String[] owners, ConstantPool pool) {
+        int nodesField = pool.fieldRef(SUPER, "nodes", "[L" + NODE + ";");
+        int stepsField = pool.fieldRef(SUPER, "steps", "L" + STEPS + ";");
+        int hop = pool.interfaceMethodRef(STEPS, "hop", "(Ljava/lang/Object;Lcom/dpf/moira/Scenario;)V");
+        int record = pool.interfaceMethodRef(STEPS, "record", "(Ljava/lang/Object;ILjava/lang/Enum;)V");
+        int end = pool.interfaceMethodRef(STEPS, "end", "(Ljava/lang/Object;ILjava/lang/Enum;Lcom/dpf/moira/Scenario;)V");
+        int ordinal = pool.methodRef("java/lang/Enum", "ordinal", "()I");
+
+        Code code = new Code();
+        Label loop = new Label();
+        Label ended = new Label();
+        Label unknown = new Label();
+        Label[] cases = labels(owners.length);
+
+        code.pushInt(plan.getStart(), pool).op(0x36).u1(3);
+        code.bind(loop);
+        code.op(0x2A).op(0xB4).u2(stepsField).op(0x2C).op(0x2B).op(0xB9).u2(hop).u1(3).u1(0);
+        code.op(0x15).u1(3).tableSwitch(unknown, cases);
+
+        for (int slot = 0; slot < owners.length; slot++) {
+            code.bind(cases[slot]);
+            String owner = owners[slot];
+            code.op(0x2A).op(0xB4).u2(nodesField).pushInt(slot, pool).op(0x32)
+                    .op(0xC0).u2(pool.classRef(owner))
+                    .op(0x2B).op(0xB6).u2(pool.methodRef(owner, "execute", EXECUTE))
+                    .op(0x3A).u1(4);
+            code.op(0x2A).op(0xB4).u2(stepsField).op(0x2C).op(0x15).u1(3).op(0x19).u1(4)
+                    .op(0xB9).u2(record).u1(4).u1(0);
+            if (plan.isTerminal(slot)) {
+                code.gotoWide(ended);
+                continue;
+            }
+            Label missing = new Label();
+            code.op(0x19).u1(4).op(0xC6).branch(missing);
+            code.op(0x19).u1(4).op(0xB6).u2(ordinal);
+            writeTransitions(code, plan, slot, missing, target -> code.pushInt(target, pool).op(0x36).u1(3).gotoWide(loop));
+            code.bind(missing);
+            code.gotoWide(ended);
+        }
+
+        code.bind(unknown);
+        code.op(0x01).op(0x3A).u1(4);
+        code.bind(ended);
+        code.op(0x2A).op(0xB4).u2(stepsField).op(0x2C).op(0x15).u1(3).op(0x19).u1(4).op(0x2B)
+                .op(0xB9).u2(end).u1(5).u1(0);
+        code.op(0x19).u1(4).op(0xB0);
+        return code;
+    }
+
+    /**
+     * Writes {@code next(slot, ordinal)} from the same transition switches as {@code run}.
+     */
+    private static Code writeNext(ExecutionPlan plan, ConstantPool pool) {
+        Code code = new Code();
+        Label missing = new Label();
+        Label[] cases = labels(plan.size());
+        code.op(0x1B).tableSwitch(missing, cases);
+        for (int slot = 0; slot < plan.size(); slot++) {
+            code.bind(cases[slot]);
+            if (plan.isTerminal(slot)) {
+                code.gotoWide(missing);
+                continue;
+            }
+            code.op(0x1C);
+            writeTransitions(code, plan, slot, missing, target -> code.pushInt(target, pool).op(0xAC));
+        }
+        code.bind(missing);
+        code.op(0x02).op(0xAC);
+        return code;
+    }
+
+    /**
+     * Writes a {@code tableswitch} on the ordinal on top of the stack, jumping to {@code missing} for the results
+     * without a resolved transition and to the code written by {@code jump} for the others.
+     */
+    private static void writeTransitions(Code code, ExecutionPlan plan, int slot, Label missing, SlotWriter jump) {
+        Enum<?>[] results = plan.getNode(slot).getResultClass().getEnumConstants();
+        Map<Integer, Label> targets = new LinkedHashMap<>();
+        Label[] cases = new Label[results.length];
+        for (Enum<?> result : results) {
+            int target = plan.next(slot, result);
+            cases[result.ordinal()] = target >= 0 ? targets.computeIfAbsent(target, t -> new Label()) : missing;
+        }
+        code.tableSwitch(missing, cases);
+        targets.forEach((target, label) -> {
+            code.bind(label);
+            jump.write(target);
+        });
+    }
+
+    private static byte[] method(ConstantPool pool, int access, String name, String descriptor, Code code,
+                                 int maxStack, int maxLocals) {
+        byte[] bytecode = code.resolve();
+        if (bytecode.length > 65535) {
+            throw new IllegalArgumentException("Generated method " + name + " is too large");
+        }
+        Bytes out = new Bytes();
+        out.u2(access).u2(pool.utf8(name)).u2(pool.utf8(descriptor)).u2(1);
+        out.u2(pool.utf8("Code")).u4(12 + bytecode.length);
+        out.u2(maxStack).u2(maxLocals).u4(bytecode.length).bytes(bytecode).u2(0).u2(0);
+        return out.toByteArray();
+    }
+
+    private static Label[] labels(int size) {
+        Label[] labels = new Label[size];
+        for (int i = 0; i < size; i++) {
+            labels[i] = new Label();
+        }
+        return labels;
+    }
+
+    private interface SlotWriter {
+        void write(int slot);
+    }
+
+    private static class Bytes {
+
+        byte[] bytes = new byte[256];
+        int length;
+
+        Bytes u1(int value) {
+            if (length == bytes.length) {
+                bytes = Arrays.copyOf(bytes, length * 2);
+            }
+            bytes[length++] = (byte) value;
+            return this;
+        }
+
+        Bytes u2(int value) {
+            return u1(value >>> 8).u1(value);
+        }
+
+        Bytes u4(int value) {
+            return u2(value >>> 16).u2(value);
+        }
+
+        Bytes bytes(byte[] values) {
+            for (byte value : values) {
+                u1(value);
+            }
+            return this;
+        }
+
+        void set4(int position, int value) {
+            bytes[position] = (byte) (value >>> 24);
+            bytes[position + 1] = (byte) (value >>> 16);
+            bytes[position + 2] = (byte) (value >>> 8);
+            bytes[position + 3] = (byte) value;
+        }
+
+        void set2(int position, int value) {
+            bytes[position] = (byte) (value >>> 8);
+            bytes[position + 1] = (byte) value;
+        }
+
+        byte[] toByteArray() {
+            return Arrays.copyOf(bytes, length);
+        }
+    }
+
+    /**
+     * Runs a copy of the generated code along every transition of the plan and checks each execution against the
+     * interpreter. The copy is written as the generated code is, but calls nodes through {@link Node}, so each node
+     * is replaced by one returning the results of a script.
+     */
+    private static final class Probe implements GeneratedWorkflow.Steps {
+
+        private final ExecutionPlan plan;
+        private final Node<?, ?>[] nodes;
+        private final List<String> events = new ArrayList<>();
+        private Enum<?>[] script;
+        private int position;
+
+        private Probe(ExecutionPlan plan) {
+            this.plan = plan;
+            this.nodes = new Node<?, ?>[plan.size()];
+            for (int slot = 0; slot < nodes.length; slot++) {
+                nodes[slot] = new ScriptedNode<>(this, slot);
+            }
+        }
+
+        /**
+         * Runs an execution for every result of every node reachable from the start node, each of them reached by
+         * the shortest path.
+         *
+         * @throws IllegalStateException when an execution takes a path, or ends with a result, the interpreter does
+         *                               not
+         */
+        private void verify(GeneratedWorkflow copy) {
+            Map<Integer, List<Enum<?>>> paths = new LinkedHashMap<>();
+            paths.put(plan.getStart(), List.of());
+            List<Integer> queue = new ArrayList<>(List.of(plan.getStart()));
+            for (int i = 0; i < queue.size(); i++) {
+                int slot = queue.get(i);
+                for (Enum<?> result : plan.getNode(slot).getResultClass().getEnumConstants()) {
+                    List<Enum<?>> path = new ArrayList<>(paths.get(slot));
+                    path.add(result);
+                    verify(copy, path.toArray(new Enum<?>[0]));
+                    int next = plan.isTerminal(slot) ? -1 : plan.next(slot, result);
+                    if (next >= 0 && !paths.containsKey(next)) {
+                        paths.put(next, path);
+                        queue.add(next);
+                    }
+                }
+            }
+        }
+
+        private void verify(GeneratedWorkflow copy, Enum<?>[] results) {
+            script = results;
+            position = 0;
+            events.clear();
+            String returned;
+            try {
+                returned = "return " + copy.run(null, null);
+            } catch (Stop e) {
+                returned = "stop";
+            }
+            events.add(returned);
+            List<String> expected = interpret(results);
+            if (!events.equals(expected)) {
+                throw new IllegalStateException(String.format(
+                        "Generated code of workflow %s runs %s instead of %s on results %s",
+                        plan.getWorkflow().getId().getValue(), events, expected, Arrays.asList(results)));
+            }
+        }
+
+        /**
+         * @return the steps the interpreter takes when the nodes decide the given results, and then stop
+         */
+        private List<String> interpret(Enum<?>[] results) {
+            List<String> expected = new ArrayList<>();
+            int slot = plan.getStart();
+            for (Enum<?> result : results) {
+                expected.add("hop");
+                expected.add("execute " + slot);
+                expected.add("record " + slot + " " + result);
+                int next = plan.isTerminal(slot) ? -1 : plan.next(slot, result);
+                if (next < 0) {
+                    expected.add("end " + slot + " " + result);
+                    expected.add("return " + result);
+                    return expected;
+                }
+                slot = next;
+            }
+            expected.add("hop");
+            expected.add("execute " + slot);
+            expected.add("stop");
+            return expected;
+        }
+
+        private Enum<?> execute(int slot) {
+            events.add("execute " + slot);
+            if (position == script.length) {
+                throw new Stop();
+            }
+            return script[position++];
+        }
+
+        @Override
+        public void hop(Object cursor, Scenario<?> scenario) {
+            events.add("hop");
+        }
+
+        @Override
+        public void record(Object cursor, int slot, Enum<?> result) {
+            events.add("record " + slot + " " + result);
+        }
+
+        @Override
+        public void end(Object cursor, int slot, Enum<?> result, Scenario<?> scenario) {
+            events.add("end " + slot + " " + result);
+        }
+    }
+
+    private static final class ScriptedNode<E extends Enum<E>> extends Node<Object, E> {
+
+        private final Probe probe;
+        private final int slot;
+
+        private ScriptedNode(Probe probe, int slot) {
+            this.probe = probe;
+            this.slot = slot;
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public E execute(Scenario<Object> scenario) {
+            return (E) probe.execute(slot);
+        }
+    }
+
+    /**
+     * Stops a probe execution once the results of its script are used.
+     */
+    private static final class Stop extends RuntimeException {
+
+        private static final long serialVersionUID = 1L;
+
+        private Stop() {
+            super(null, null, false, false);
+        }
+    }
+
+    private static final class Label {
+        private int position = -1;
+    }
+
+    /**
+     * The bytecode of a method, with jumps to labels resolved once every label is bound.
+     */
+    private static final class Code extends Bytes {
+
+        /**
+         * A jump offset to patch: where the instruction starts, where its offset is and whether it takes 4 bytes.
+         */
+        private final List<int[]> jumps = new ArrayList<>();
+        private final List<Label> jumpLabels = new ArrayList<>();
+
+        Code op(int opcode) {
+            u1(opcode);
+            return this;
+        }
+
+        void bind(Label label) {
+            label.position = length();
+        }
+
+        int length() {
+            return length;
+        }
+
+        private void jump(int instruction, Label label, boolean wide) {
+            jumps.add(new int[]{instruction, length(), wide ? 1 : 0});
+            jumpLabels.add(label);
+            if (wide) {
+                u4(0);
+            } else {
+                u2(0);
+            }
+        }
+
+        /**
+         * Writes the offset of a two bytes branch instruction just written.
+         */
+        Code branch(Label label) {
+            jump(length() - 1, label, false);
+            return this;
+        }
+
+        Code gotoWide(Label label) {
+            int instruction = length();
+            op(0xC8);
+            jump(instruction, label, true);
+            return this;
+        }
+
+        Code tableSwitch(Label otherwise, Label[] cases) {
+            int instruction = length();
+            op(0xAA);
+            while (length() % 4 != 0) {
+                u1(0);
+            }
+            jump(instruction, otherwise, true);
+            u4(0).u4(Math.max(cases.length - 1, 0));
+            if (cases.length == 0) {
+                jump(instruction, otherwise, true);
+            }
+            for (Label label : cases) {
+                jump(instruction, label, true);
+            }
+            return this;
+        }
+
+        Code pushInt(int value, ConstantPool pool) {
+            if (value >= -1 && value <= 5) {
+                return op(0x03 + value);
+            }
+            if (value >= Byte.MIN_VALUE && value <= Byte.MAX_VALUE) {
+                op(0x10).u1(value);
+                return this;
+            }
+            if (value >= Short.MIN_VALUE && value <= Short.MAX_VALUE) {
+                op(0x11).u2(value);
+                return this;
+            }
+            op(0x13).u2(pool.integer(value));
+            return this;
+        }
+
+        @Override
+        Code u1(int value) {
+            super.u1(value);
+            return this;
+        }
+
+        @Override
+        Code u2(int value) {
+            super.u2(value);
+            return this;
+        }
+
+        @Override
+        Code u4(int value) {
+            super.u4(value);
+            return this;
+        }
+
+        byte[] resolve() {
+            for (int i = 0; i < jumps.size(); i++) {
+                int[] jump = jumps.get(i);
+                int offset = jumpLabels.get(i).position - jump[0];
+                if (jump[2] == 1) {
+                    set4(jump[1], offset);
+                } else if (offset < Short.MIN_VALUE || offset > Short.MAX_VALUE) {
+                    throw new IllegalArgumentException("Generated branch is too long");
+                } else {
+                    set2(jump[1], offset);
+                }
+            }
+            return toByteArray();
+        }
+    }
+
+    private static final class ConstantPool {
+
+        private final Bytes entries = new Bytes();
+        private final Map<String, Integer> indexes = new HashMap<>();
+        private int count = 1;
+
+        private int entry(String key, Runnable writer) {
+            Integer index = indexes.get(key);
+            if (index == null) {
+                writer.run();
+                index = count++;
+                indexes.put(key, index);
+            }
+            return index;
+        }
+
+        int utf8(String value) {
+            return entry("U" + value, () -> {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                entries.u1(1).u2(bytes.length).bytes(bytes);
+            });
+        }
+
+        int integer(int value) {
+            return entry("I" + value, () -> entries.u1(3).u4(value));
+        }
+
+        int classRef(String name) {
+            int nameIndex = utf8(name);
+            return entry("C" + name, () -> entries.u1(7).u2(nameIndex));
+        }
+
+        private int nameAndType(String name, String descriptor) {
+            int nameIndex = utf8(name);
+            int descriptorIndex = utf8(descriptor);
+            return entry("N" + name + ":" + descriptor, () -> entries.u1(12).u2(nameIndex).u2(descriptorIndex));
+        }
+
+        private int memberRef(int tag, String owner, String name, String descriptor) {
+            int classIndex = classRef(owner);
+            int nameAndTypeIndex = nameAndType(name, descriptor);
+            return entry(tag + owner + "." + name + ":" + descriptor,
+                    () -> entries.u1(tag).u2(classIndex).u2(nameAndTypeIndex));
+        }
+
+        int fieldRef(String owner, String name, String descriptor) {
+            return memberRef(9, owner, name, descriptor);
+        }
+
+        int methodRef(String owner, String name, String descriptor) {
+            return memberRef(10, owner, name, descriptor);
+        }
+
+        int interfaceMethodRef(String owner, String name, String descriptor) {
+            return memberRef(11, owner, name, descriptor);
+        }
+
+        void writeTo(Bytes out) {
+            out.u2(count).bytes(entries.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.dpf.moira;
+
+import com.dpf.moira.yaml.ForkYml;
+import com.dpf.moira.yaml.NodeYml;
+import com.dpf.moira.yaml.TransitionYml;
+import com.dpf.moira.yaml.WorkFlowYml;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * A binary index of workflow definitions, written at build time by {@link WorkflowCompiler} so that startup does not
+ * have to list, hash and parse the YAML files.
+ * <p>
+ * The index starts with a table of the distinct strings used by the workflows, followed by the workflows, whose IDs,
+ * nodes, transitions, forks, calls and timeout fallbacks refer to the table by position. All integers are big endian.
+ */
+final class WorkflowIndex {
+
+    private static final Logger logger = LoggerFactory.getLogger(WorkflowIndex.class);
+
+    private static final int MAGIC = 0x4D4F4952;
+
+    private static final int FORMAT_VERSION = 4;
+
+    private static final int NONE = -1;
+
+    private WorkflowIndex() {
+    }
+
+    static void write(Collection<WorkFlowYml> workflows, Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (OutputStream outputStream = Files.newOutputStream(file)) {
+            write(workflows, outputStream);
+        }
+    }
+
+    static void write(Collection<WorkFlowYml> workflows, OutputStream outputStream) throws IOException {
+        List<String> strings = new ArrayList<>();
+        Map<String, Integer> positions = new HashMap<>();
+        for (WorkFlowYml workflow : workflows) {
+            intern(workflow.getId(), strings, positions);
+            intern(workflow.getStart(), strings, positions);
+            intern(workflow.getCacheKey(), strings, positions);
+            intern(workflow.getOnTimeout(), strings, positions);
+            for (NodeYml node : workflow.getNodes()) {
+                intern(node.getId(), strings, positions);
+                intern(node.getCall(), strings, positions);
+                intern(node.getOnTimeout(), strings, positions);
+                for (TransitionYml transition : node.getTransitions()) {
+                    intern(transition.getResult(), strings, positions);
+                    intern(transition.getNext(), strings, positions);
+                }
+                ForkYml fork = node.getFork();
+                if (fork != null) {
+                    intern(fork.getJoin(), strings, positions);
+                    intern(fork.getPartitioner(), strings, positions);
+                    fork.getBranches().forEach(branch -> intern(branch, strings, positions));
+                }
+            }
+        }
+
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(outputStream));
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(strings.size());
+        for (String string : strings) {
+            byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+        out.writeInt(workflows.size());
+        for (WorkFlowYml workflow : workflows) {
+            out.writeInt(position(workflow.getId(), positions));
+            out.writeInt(position(workflow.getStart(), positions));
+            out.writeInt(position(workflow.getCacheKey(), positions));
+            out.writeLong(millis(workflow.getTimeoutMillis()));
+            out.writeInt(position(workflow.getOnTimeout(), positions));
+            out.writeInt(workflow.getNodes().size());
+            for (NodeYml node : workflow.getNodes()) {
+                out.writeInt(position(node.getId(), positions));
+                out.writeInt(position(node.getCall(), positions));
+                out.writeLong(millis(node.getTimeoutMillis()));
+                out.writeInt(position(node.getOnTimeout(), positions));
+                out.writeInt(node.getTransitions().size());
+                for (TransitionYml transition : node.getTransitions()) {
+                    out.writeInt(position(transition.getResult(), positions));
+                    out.writeInt(position(transition.getNext(), positions));
+                }
+                ForkYml fork = node.getFork();
+                if (fork == null) {
+                    out.writeInt(NONE);
+                    continue;
+                }
+                out.writeInt(fork.getBranches().size());
+                for (String branch : fork.getBranches()) {
+                    out.writeInt(position(branch, positions));
+                }
+                out.writeInt(position(fork.getJoin(), positions));
+                out.writeInt(position(fork.getPartitioner(), positions));
+            }
+        }
+        out.flush();
+    }
+
+    private static void intern(String value, List<String> strings, Map<String, Integer> positions) {
+        if (value != null && !positions.containsKey(value)) {
+            positions.put(value, strings.size());
+            strings.add(value);
+        }
+    }
+
+    private static int position(String value, Map<String, Integer> positions) {
+        return value != null ? positions.get(value) : NONE;
+    }
+
+    private static long millis(Long millis) {
+        return millis != null ? millis : NONE;
+    }
+
+    private static Long millis(long millis) {
+        return millis != NONE ? millis : null;
+    }
+
+    /**
+     * Loads the index from the classpath. A file is memory mapped, a resource inside a JAR is read into memory.
+     *
+     * @return the workflows of the index, or empty when there is no such resource or it cannot be read
+     */
+    static Optional<List<WorkFlowYml>> load(String resource) {
+        if (resource == null || resource.isBlank()) {
+            return Optional.empty();
+        }
+        URL resourceURL = WorkflowIndex.class.getClassLoader().getResource(resource);
+        if (resourceURL == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(read(map(resourceURL)));
+        } catch (IOException | URISyntaxException | IllegalArgumentException e) {
+            logger.warn("Ignoring workflow index {}: {}", resourceURL, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static ByteBuffer map(URL resourceURL) throws IOException, URISyntaxException {
+        if ("file".equals(resourceURL.getProtocol())) {
+            try (FileChannel channel = FileChannel.open(Paths.get(resourceURL.toURI()), StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+        try (InputStream inputStream = resourceURL.openStream()) {
+            return ByteBuffer.wrap(inputStream.readAllBytes());
+        }
+    }
+
+    static List<WorkFlowYml> read(ByteBuffer buffer) {
+        try {
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgumentException("Not a workflow index");
+            }
+            int formatVersion = buffer.getInt();
+            if (formatVersion != FORMAT_VERSION) {
+                throw new IllegalArgumentException("Unsupported workflow index version " + formatVersion);
+            }
+
+            String[] strings = new String[buffer.getInt()];
+            for (int i = 0; i < strings.length; i++) {
+                byte[] bytes = new byte[buffer.getInt()];
+                buffer.get(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+
+            int workflowCount = buffer.getInt();
+            List<WorkFlowYml> workflows = new ArrayList<>(workflowCount);
+            for (int i = 0; i < workflowCount; i++) {
+                WorkFlowYml workflow = new WorkFlowYml();
+                workflow.setId(string(strings, buffer.getInt()));
+                workflow.setStart(string(strings, buffer.getInt()));
+                workflow.setCacheKey(string(strings, buffer.getInt()));
+                workflow.setTimeoutMillis(millis(buffer.getLong()));
+                workflow.setOnTimeout(string(strings, buffer.getInt()));
+                int nodeCount = buffer.getInt();
+                List<NodeYml> nodes = new ArrayList<>(nodeCount);
+                for (int n = 0; n < nodeCount; n++) {
+                    String nodeId = string(strings, buffer.getInt());
+                    String call = string(strings, buffer.getInt());
+                    Long timeoutMillis = millis(buffer.getLong());
+                    String onTimeout = string(strings, buffer.getInt());
+                    int transitionCount = buffer.getInt();
+                    List<TransitionYml> transitions = new ArrayList<>(transitionCount);
+                    for (int t = 0; t < transitionCount; t++) {
+                        transitions.add(new TransitionYml(string(strings, buffer.getInt()), string(strings, buffer.getInt())));
+                    }
+                    NodeYml node = new NodeYml(nodeId, transitions);
+                    node.setCall(call);
+                    node.setTimeoutMillis(timeoutMillis);
+                    node.setOnTimeout(onTimeout);
+                    int branchCount = buffer.getInt();
+                    if (branchCount != NONE) {
+                        List<String> branches = new ArrayList<>(branchCount);
+                        for (int b = 0; b < branchCount; b++) {
+                            branches.add(string(strings, buffer.getInt()));
+                        }
+                        node.setFork(new ForkYml(string(strings, buffer.getInt()), string(strings, buffer.getInt()), branches));
+                    }
+                    nodes.add(node);
+                }
+                workflow.setNodes(nodes);
+                workflows.add(workflow);
+            }
+            return workflows;
+        } catch (BufferUnderflowException | NegativeArraySizeException e) {
+            throw new IllegalArgumentException("Truncated workflow index", e);
+        }
+    }
+
+    private static String string(String[] strings, int position) {
+        if (position == NONE) {
+            return null;
+        }
+        if (position < 0 || position >= strings.length) {
+            throw new IllegalArgumentException("Corrupted workflow index");
+        }
+        return strings[position];
+    }
+}
@@ -0,0 +1,147 @@
+package com.dpf.moira;
+
+import com.dpf.moira.entity.DecisionNodeResult;
+import com.dpf.moira.entity.Fork;
+import com.dpf.moira.entity.NodeId;
+import com.dpf.moira.entity.Transitions;
+import com.dpf.moira.entity.Workflow;
+import com.dpf.moira.entity.WorkflowId;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * Replaces the nodes calling another workflow with a copy of the called workflow, so calls cost nothing at runtime.
+ * <p>
+ * The nodes of the called workflow are copied under the ID of the calling node followed by a slash, for example
+ * {@code safety/brake}, and still run the node registered with their own ID. Transitions to the calling node go to
+ * the start node of the copy, and the terminal nodes of the copy take the transitions of the calling node, matched by
+ * the name of the result they decide. Called workflows are inlined recursively. The timeout of a called workflow is
+ * ignored, the one of the calling workflow bounds the whole execution, while the timeouts of its nodes are kept.
+ */
+final class WorkflowInliner {
+
+    private static final String SEPARATOR = "/";
+
+    private WorkflowInliner() {
+    }
+
+    /**
+     * @param lookup finds the declared workflows by ID
+     * @return the workflow with every call inlined, or the workflow itself when it calls no other workflow
+     * @throws IllegalArgumentException when a called workflow is not found or a workflow ends up calling itself
+     */
+    static Workflow inline(Workflow workflow, Function<WorkflowId, Optional<Workflow>> lookup) {
+        if (workflow.getCalls().isEmpty()) {
+            return workflow;
+        }
+        Deque<WorkflowId> callers = new ArrayDeque<>();
+        callers.push(workflow.getId());
+        return inline(workflow, lookup, callers);
+    }
+
+    private static Workflow inline(Workflow workflow, Function<WorkflowId, Optional<Workflow>> lookup,
+                                   Deque<WorkflowId> callers) {
+        if (workflow.getCalls().isEmpty()) {
+            return workflow;
+        }
+        Map<NodeId, Transitions> transitionsByNode = new LinkedHashMap<>();
+        Map<NodeId, Fork> forks = new HashMap<>();
+        Map<NodeId, NodeId> registeredNodes = new HashMap<>(workflow.getRegisteredNodes());
+        Map<NodeId, NodeId> entries = new HashMap<>();
+
+        workflow.getTransitionsByNode().forEach((nodeId, transitions) -> {
+            if (!workflow.getCalls().containsKey(nodeId)) {
+                transitionsByNode.put(nodeId, transitions);
+                Fork fork = workflow.getForks().get(nodeId);
+                if (fork != null) {
+                    forks.put(nodeId, fork);
+                }
+            }
+        });
+
+        workflow.getCalls().forEach((callNode, calledId) -> {
+            if (callers.contains(calledId)) {
+                List<String> chain = new ArrayList<>();
+                callers.descendingIterator().forEachRemaining(caller -> chain.add(caller.getValue()));
+                chain.add(calledId.getValue());
+                throw new IllegalArgumentException(String.format("Workflow %s calls itself through %s",
+                        calledId.getValue(), String.join(" -> ", chain)));
+            }
+            Workflow called = lookup.apply(calledId)
+                    .orElseThrow(() -> new IllegalArgumentException(String.format(
+                            "Workflow %s called by node %s of workflow %s not found",
+                            calledId.getValue(), callNode.getValue(), workflow.getId().getValue())));
+            callers.push(calledId);
+            Workflow flat = inline(called, lookup, callers);
+            callers.pop();
+
+            String prefix = callNode.getValue() + SEPARATOR;
+            Map<DecisionNodeResult, NodeId> exits = workflow.getTransitionsByNode().get(callNode).getTransitions();
+            entries.put(callNode, prefixed(prefix, flat.getStart()));
+            flat.getTransitionsByNode().forEach((nodeId, transitions) -> {
+                NodeId copy = prefixed(prefix, nodeId);
+                if (transitionsByNode.containsKey(copy)) {
+                    throw new IllegalArgumentException(String.format(
+                            "Node %s inlined from workflow %s clashes with a node of workflow %s",
+                            copy.getValue(), calledId.getValue(), workflow.getId().getValue()));
+                }
+                transitionsByNode.put(copy, new Transitions(transitions.getTransitions().isEmpty()
+                        ? exits
+                        : prefixed(prefix, transitions.getTransitions()),
+                        transitions.getTimeoutMillis(),
+                        transitions.getOnTimeout() != null ? prefixed(prefix, transitions.getOnTimeout()) : null));
+                Fork fork = flat.getForks().get(nodeId);
+                if (fork != null) {
+                    forks.put(copy, new Fork(fork.getBranches().stream()
+                            .map(branch -> prefixed(prefix, branch))
+                            .collect(Collectors.toList()), fork.getJoin(), fork.getPartitioner()));
+                }
+                registeredNodes.put(copy, flat.getRegisteredNode(nodeId));
+            });
+        });
+
+        transitionsByNode.replaceAll((nodeId, transitions) -> new Transitions(
+                retarget(transitions.getTransitions(), entries),
+                transitions.getTimeoutMillis(),
+                retarget(transitions.getOnTimeout(), entries)));
+        forks.replaceAll((nodeId, fork) -> new Fork(fork.getBranches().stream()
+                .map(branch -> entries.getOrDefault(branch, branch))
+                .collect(Collectors.toList()), fork.getJoin(), fork.getPartitioner()));
+        return new Workflow(workflow.getId(), entries.getOrDefault(workflow.getStart(), workflow.getStart()),
+                transitionsByNode, workflow.getCacheKey(), forks, Map.of(), registeredNodes,
+                workflow.getTimeoutMillis(), retarget(workflow.getOnTimeout(), entries));
+    }
+
+    private static NodeId prefixed(String prefix, NodeId nodeId) {
+        return new NodeId(prefix + nodeId.getValue());
+    }
+
+    private static Map<DecisionNodeResult, NodeId> prefixed(String prefix, Map<DecisionNodeResult, NodeId> transitions) {
+        Map<DecisionNodeResult, NodeId> copy = new HashMap<>();
+        transitions.forEach((result, next) -> copy.put(result, prefixed(prefix, next)));
+        return copy;
+    }
+
+    /**
+     * Points the transitions to calling nodes to the start node of the called workflow.
+     */
+    private static Map<DecisionNodeResult, NodeId> retarget(Map<DecisionNodeResult, NodeId> transitions,
+                                                          Map<NodeId, NodeId> entries) {
+        Map<DecisionNodeResult, NodeId> retargeted = new HashMap<>();
+        transitions.forEach((result, next) -> retargeted.put(result, entries.getOrDefault(next, next)));
+        return retargeted;
+    }
+
+    private static NodeId retarget(NodeId nodeId, Map<NodeId, NodeId> entries) {
+        return nodeId != null ? entries.getOrDefault(nodeId, nodeId) : null;
+    }
+}
@@ -0,0 +1,85 @@
+package com.dpf.moira;
+
+import com.dpf.moira.cache.CacheStats;
+import com.dpf.moira.cache.LruCache;
+import com.dpf.moira.entity.WorkflowId;
+
+import java.util.Collection;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * The outcomes of the workflows declaring a {@code cacheKey}, shared by all of them and keyed by workflow ID,
+ * workflow version and scenario key. A scenario whose outcome is cached skips the walk entirely.
+ */
+final class WorkflowResultCache {
+
+    private final LruCache<Key, ExecutionRecord> cache;
+
+    WorkflowResultCache(int maximumSize, long ttlMillis) {
+        this.cache = new LruCache<>(maximumSize, ttlMillis);
+    }
+
+    /**
+     * @return the key of the scenario in the plan, or {@code null} when the outcome is not cached
+     */
+    Object key(ExecutionPlan plan, Object scenario) {
+        if (plan.getCacheKey() == null) {
+            return null;
+        }
+        Object scenarioKey = plan.getCacheKey().extract(scenario);
+        return scenarioKey != null ? new Key(plan.getWorkflow().getId(), plan.getVersion(), scenarioKey) : null;
+    }
+
+    ExecutionRecord get(Object key) {
+        return cache.get((Key) key);
+    }
+
+    void put(Object key, ExecutionRecord record) {
+        cache.put((Key) key, record);
+    }
+
+    /**
+     * Drops the outcomes of every version of the given workflows.
+     */
+    void invalidate(Collection<WorkflowId> workflowIds) {
+        if (!workflowIds.isEmpty()) {
+            Set<WorkflowId> ids = Set.copyOf(workflowIds);
+            cache.invalidateIf(key -> ids.contains(key.workflowId));
+        }
+    }
+
+    void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    CacheStats getStats() {
+        return cache.getStats();
+    }
+
+    private static final class Key {
+
+        private final WorkflowId workflowId;
+        private final long version;
+        private final Object scenarioKey;
+
+        private Key(WorkflowId workflowId, long version, Object scenarioKey) {
+            this.workflowId = workflowId;
+            this.version = version;
+            this.scenarioKey = scenarioKey;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (o == null || getClass() != o.getClass()) return false;
+            Key key = (Key) o;
+            return version == key.version && workflowId.equals(key.workflowId) && scenarioKey.equals(key.scenarioKey);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(workflowId, version, scenarioKey);
+        }
+    }
+}
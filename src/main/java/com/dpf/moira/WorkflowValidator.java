@@ -0,0 +1,322 @@
+package com.dpf.moira;
+
+import com.dpf.moira.entity.DecisionNodeResult;
+import com.dpf.moira.entity.Fork;
+import com.dpf.moira.entity.NodeId;
+import com.dpf.moira.entity.Transitions;
+import com.dpf.moira.entity.Workflow;
+import com.dpf.moira.yaml.ForkYml;
+import com.dpf.moira.yaml.NodeYml;
+import com.dpf.moira.yaml.TransitionYml;
+import com.dpf.moira.yaml.WorkFlowYml;
+import com.dpf.moira.yaml.mapper.WorkFlowYmlMapper;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Checks the structure of workflow definitions: IDs are present and unique, and the start node, every transition
+ * target, every branch of a fork, every timeout fallback and every workflow called are declared, and timeouts are not
+ * negative. Once nodes are registered, workflows are also checked against them, see
+ * {@link #validate(Workflow, NodeRegistry)}.
+ */
+final class WorkflowValidator {
+
+    private WorkflowValidator() {
+    }
+
+    /**
+     * @return a description of every problem found, empty when the workflows are valid
+     */
+    static List<String> validate(Collection<WorkFlowYml> workflows) {
+        List<String> problems = new ArrayList<>();
+        Set<String> workflowIds = new HashSet<>();
+        for (WorkFlowYml workflow : workflows) {
+            if (isBlank(workflow.getId())) {
+                problems.add("Workflow without id");
+                continue;
+            }
+            if (!workflowIds.add(workflow.getId())) {
+                problems.add(String.format("Workflow %s is declared more than once", workflow.getId()));
+            }
+            validate(workflow, problems);
+        }
+        for (WorkFlowYml workflow : workflows) {
+            for (NodeYml node : workflow.getNodes()) {
+                if (!isBlank(node.getCall()) && !workflowIds.contains(node.getCall().trim())) {
+                    problems.add(String.format("Workflow %s called by node %s of workflow %s is not declared",
+                            node.getCall(), node.getId(), workflow.getId()));
+                }
+            }
+        }
+        return problems;
+    }
+
+    private static void validate(WorkFlowYml workflow, List<String> problems) {
+        String workflowId = workflow.getId();
+        Set<String> nodeIds = new HashSet<>();
+        for (NodeYml node : workflow.getNodes()) {
+            if (isBlank(node.getId())) {
+                problems.add(String.format("Workflow %s has a node without id", workflowId));
+            } else if (!nodeIds.add(node.getId())) {
+                problems.add(String.format("Node %s is declared more than once in workflow %s", node.getId(), workflowId));
+            }
+        }
+
+        if (isBlank(workflow.getStart())) {
+            problems.add(String.format("Workflow %s has no start node", workflowId));
+        } else if (!nodeIds.contains(workflow.getStart())) {
+            problems.add(String.format("Start node %s is not declared in workflow %s", workflow.getStart(), workflowId));
+        }
+        validateTimeout(workflow.getTimeoutMillis(), workflow.getOnTimeout(), "Workflow " + workflowId, nodeIds, problems);
+
+        for (NodeYml node : workflow.getNodes()) {
+            validateTimeout(node.getTimeoutMillis(), node.getOnTimeout(),
+                    String.format("Node %s of workflow %s", node.getId(), workflowId), nodeIds, problems);
+            Set<String> results = new HashSet<>();
+            for (TransitionYml transition : node.getTransitions()) {
+                if (isBlank(transition.getResult())) {
+                    problems.add(String.format("Node %s of workflow %s has a transition without result", node.getId(), workflowId));
+                } else if (!results.add(transition.getResult())) {
+                    problems.add(String.format("Node %s of workflow %s has more than one transition for result %s",
+                            node.getId(), workflowId, transition.getResult()));
+                }
+                if (isBlank(transition.getNext())) {
+                    problems.add(String.format("Node %s of workflow %s has a transition without next node", node.getId(), workflowId));
+                } else if (!nodeIds.contains(transition.getNext())) {
+                    problems.add(String.format("Node %s reached from %s is not declared in workflow %s",
+                            transition.getNext(), node.getId(), workflowId));
+                }
+            }
+            if (node.getFork() != null) {
+                validate(workflowId, node.getId(), node.getFork(), nodeIds, problems);
+            }
+            if (node.getCall() != null && isBlank(node.getCall())) {
+                problems.add(String.format("Node %s of workflow %s calls a workflow without id", node.getId(), workflowId));
+            }
+            if (node.getCall() != null && node.getFork() != null) {
+                problems.add(String.format("Node %s of workflow %s both forks and calls a workflow", node.getId(), workflowId));
+            }
+        }
+    }
+
+    private static void validateTimeout(Long timeoutMillis, String onTimeout, String owner, Set<String> nodeIds,
+                                        List<String> problems) {
+        if (timeoutMillis != null && timeoutMillis < 0) {
+            problems.add(String.format("%s has a negative timeout %d", owner, timeoutMillis));
+        }
+        if (onTimeout != null && !nodeIds.contains(onTimeout.trim())) {
+            problems.add(String.format("%s falls back to undeclared node %s on timeout", owner, onTimeout));
+        }
+    }
+
+    private static void validate(String workflowId, String forkId, ForkYml fork, Set<String> nodeIds,
+                                 List<String> problems) {
+        try {
+            WorkFlowYmlMapper.toJoin(fork.getJoin());
+        } catch (IllegalArgumentException e) {
+            problems.add(String.format("Fork %s of workflow %s has unknown join %s", forkId, workflowId, fork.getJoin()));
+        }
+        if (fork.getBranches().isEmpty()) {
+            problems.add(String.format("Fork %s of workflow %s has no branches", forkId, workflowId));
+        }
+        for (String branch : fork.getBranches()) {
+            if (isBlank(branch)) {
+                problems.add(String.format("Fork %s of workflow %s has a branch without start node", forkId, workflowId));
+            } else if (!nodeIds.contains(branch)) {
+                problems.add(String.format("Branch %s of fork %s is not declared in workflow %s", branch, forkId, workflowId));
+            }
+        }
+    }
+
+    /**
+     * Checks a workflow against the registered nodes, after {@link WorkflowInliner inlining} the workflows it calls:
+     * every declared node is registered unless it is a fork, the start
+     * node, every transition target, every branch and every timeout fallback are declared, a fork joining {@code ALL} has a transition for
+     * {@code DONE}, every result of a non terminal node has a transition, every node is reachable
+     * from the start node, and every reachable node can reach a terminal one, so no execution is stuck in a cycle.
+     * <p>
+     * Results are only checked for the nodes the workflow declares itself. The terminal nodes of a called workflow take
+     * the transitions of the calling node once inlined, but they are still terminal where they are declared, and the
+     * nodes of a called workflow are checked when that workflow is.
+     *
+     * @param declared the workflow as declared, before inlining
+     * @param workflow the workflow with its calls inlined
+     * @return a description of every problem found, empty when the workflow is valid
+     */
+    static List<String> validate(Workflow declared, Workflow workflow, NodeRegistry nodeRegistry) {
+        List<String> problems = new ArrayList<>();
+        String workflowId = workflow.getId().getValue();
+        Map<NodeId, Transitions> transitionsByNode = workflow.getTransitionsByNode();
+
+        if (!transitionsByNode.containsKey(workflow.getStart())) {
+            problems.add(String.format("Start node %s is not declared in workflow %s", workflow.getStart(), workflowId));
+        }
+        if (workflow.getOnTimeout() != null && !transitionsByNode.containsKey(workflow.getOnTimeout())) {
+            problems.add(String.format("Workflow %s falls back to undeclared node %s on timeout",
+                    workflowId, workflow.getOnTimeout()));
+        }
+
+        for (Map.Entry<NodeId, Transitions> entry : transitionsByNode.entrySet()) {
+            NodeId nodeId = entry.getKey();
+            Map<DecisionNodeResult, NodeId> transitions = entry.getValue().getTransitions();
+            transitions.forEach((result, next) -> {
+                if (!transitionsByNode.containsKey(next)) {
+                    problems.add(String.format("Node %s reached from %s is not declared in workflow %s",
+                            next, nodeId, workflowId));
+                }
+            });
+            NodeId onTimeout = entry.getValue().getOnTimeout();
+            if (onTimeout != null && !transitionsByNode.containsKey(onTimeout)) {
+                problems.add(String.format("Node %s of workflow %s falls back to undeclared node %s on timeout",
+                        nodeId, workflowId, onTimeout));
+            }
+
+            Fork fork = workflow.getForks().get(nodeId);
+            if (fork != null) {
+                validate(workflow, nodeId, fork, transitions, problems);
+                continue;
+            }
+
+            if (workflow.getCalls().containsKey(nodeId)) {
+                continue;
+            }
+
+            Collection<Node<?, ?>> nodes = nodeRegistry.getNodes(workflow.getRegisteredNode(nodeId));
+            if (nodes.isEmpty()) {
+                problems.add(String.format("Node %s of workflow %s is not registered", nodeId, workflowId));
+            }
+            if (transitions.isEmpty() || !declared.getTransitionsByNode().containsKey(nodeId)) {
+                continue;
+            }
+            for (Node<?, ?> node : nodes) {
+                Set<String> results = new HashSet<>();
+                for (Enum<?> result : node.getResultClass().getEnumConstants()) {
+                    results.add(result.name());
+                    if (!transitions.containsKey(new DecisionNodeResult(result.name()))) {
+                        problems.add(String.format("Node %s of workflow %s has no transition for result %s",
+                                nodeId, workflowId, result.name()));
+                    }
+                }
+                for (DecisionNodeResult result : transitions.keySet()) {
+                    if (!results.contains(result.getValue())) {
+                        problems.add(String.format("Node %s of workflow %s has a transition for unknown result %s of %s",
+                                nodeId, workflowId, result.getValue(), node.getResultClass().getSimpleName()));
+                    }
+                }
+            }
+        }
+
+        Set<NodeId> reachable = reachable(workflow);
+        for (NodeId nodeId : transitionsByNode.keySet()) {
+            if (!reachable.contains(nodeId)) {
+                problems.add(String.format("Node %s of workflow %s is unreachable from start node %s",
+                        nodeId, workflowId, workflow.getStart()));
+            }
+        }
+
+        Set<NodeId> ending = ending(workflow);
+        List<String> stuck = new ArrayList<>();
+        for (NodeId nodeId : reachable) {
+            if (!ending.contains(nodeId)) {
+                stuck.add(nodeId.getValue());
+            }
+        }
+        if (!stuck.isEmpty()) {
+            Collections.sort(stuck);
+            problems.add(String.format("Nodes %s of workflow %s cannot reach a terminal node", stuck, workflowId));
+        }
+        return problems;
+    }
+
+    private static void validate(Workflow workflow, NodeId forkId, Fork fork, Map<DecisionNodeResult, NodeId> transitions,
+                                 List<String> problems) {
+        String workflowId = workflow.getId().getValue();
+        if (fork.getBranches().isEmpty()) {
+            problems.add(String.format("Fork %s of workflow %s has no branches", forkId, workflowId));
+        }
+        for (NodeId branch : fork.getBranches()) {
+            if (!workflow.getTransitionsByNode().containsKey(branch)) {
+                problems.add(String.format("Branch %s of fork %s is not declared in workflow %s", branch, forkId, workflowId));
+            }
+        }
+        if (fork.getJoin() == Fork.Join.ALL && !transitions.isEmpty()
+                && !transitions.containsKey(new DecisionNodeResult(ForkResult.DONE.name()))) {
+            problems.add(String.format("Fork %s of workflow %s joins ALL but has no transition for result %s",
+                    forkId, workflowId, ForkResult.DONE));
+        }
+    }
+
+    /**
+     * @return the declared nodes reachable from the start node, through transitions, the branches of forks and the
+     * timeout fallbacks
+     */
+    private static Set<NodeId> reachable(Workflow workflow) {
+        Map<NodeId, Transitions> transitionsByNode = workflow.getTransitionsByNode();
+        Set<NodeId> reachable = new HashSet<>();
+        Deque<NodeId> pending = new ArrayDeque<>();
+        for (NodeId entry : Arrays.asList(workflow.getStart(), workflow.getOnTimeout())) {
+            if (entry != null && transitionsByNode.containsKey(entry) && reachable.add(entry)) {
+                pending.add(entry);
+            }
+        }
+        while (!pending.isEmpty()) {
+            NodeId nodeId = pending.poll();
+            Transitions transitions = transitionsByNode.get(nodeId);
+            List<NodeId> successors = new ArrayList<>(transitions.getTransitions().values());
+            if (transitions.getOnTimeout() != null) {
+                successors.add(transitions.getOnTimeout());
+            }
+            Fork fork = workflow.getForks().get(nodeId);
+            if (fork != null) {
+                successors.addAll(fork.getBranches());
+            }
+            for (NodeId next : successors) {
+                if (transitionsByNode.containsKey(next) && reachable.add(next)) {
+                    pending.add(next);
+                }
+            }
+        }
+        return reachable;
+    }
+
+    /**
+     * @return the declared nodes from which a terminal node, one without transitions, can be reached
+     */
+    private static Set<NodeId> ending(Workflow workflow) {
+        Map<NodeId, Transitions> transitionsByNode = workflow.getTransitionsByNode();
+        Map<NodeId, List<NodeId>> predecessors = new HashMap<>();
+        Deque<NodeId> pending = new ArrayDeque<>();
+        Set<NodeId> ending = new HashSet<>();
+        transitionsByNode.forEach((nodeId, transitions) -> {
+            if (transitions.getTransitions().isEmpty()) {
+                ending.add(nodeId);
+                pending.add(nodeId);
+            }
+            for (NodeId next : transitions.getTransitions().values()) {
+                predecessors.computeIfAbsent(next, k -> new ArrayList<>()).add(nodeId);
+            }
+        });
+        while (!pending.isEmpty()) {
+            for (NodeId previous : predecessors.getOrDefault(pending.poll(), Collections.emptyList())) {
+                if (ending.add(previous)) {
+                    pending.add(previous);
+                }
+            }
+        }
+        return ending;
+    }
+
+    private static boolean isBlank(String value) {
+        return value == null || value.isBlank();
+    }
+}
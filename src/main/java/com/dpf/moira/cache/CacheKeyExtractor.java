@@ -0,0 +1,18 @@
+package com.dpf.moira.cache;
+
+/**
+ * Extracts from a scenario the key that identifies the result of a cacheable node. Two scenarios with equal keys
+ * must lead the node to the same result.
+ * <p>
+ * Implementations need a public no-args constructor and must be thread safe.
+ *
+ * @param <S> the scenario type
+ */
+public interface CacheKeyExtractor<S> {
+
+    /**
+     * @return the key, or {@code null} when the result for the scenario must not be cached
+     */
+    Object extract(S scenario);
+
+}
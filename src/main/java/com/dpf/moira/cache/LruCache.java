@@ -0,0 +1,148 @@
+package com.dpf.moira.cache;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Predicate;
+
+/**
+ * A bounded cache with least recently used eviction and an optional time to live.
+ * <p>
+ * Entries are spread over independently locked segments, each one evicting its own least recently used entry, so
+ * concurrent readers of different keys rarely contend.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class LruCache<K, V> {
+
+    private static final int MAX_SEGMENTS = 16;
+    private static final int MIN_ENTRIES_PER_SEGMENT = 16;
+
+    private final List<Segment<K, V>> segments;
+    private final long ttlNanos;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    /**
+     * @param maximumSize the maximum number of entries
+     * @param ttlMillis   how long entries live after being written, or {@code 0} for no expiration
+     */
+    public LruCache(int maximumSize, long ttlMillis) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("maximumSize must be greater than zero");
+        }
+        int segmentCount = 1;
+        while (segmentCount < MAX_SEGMENTS && maximumSize / (segmentCount * 2) >= MIN_ENTRIES_PER_SEGMENT) {
+            segmentCount *= 2;
+        }
+        int segmentSize = (maximumSize + segmentCount - 1) / segmentCount;
+        this.segments = new ArrayList<>(segmentCount);
+        for (int i = 0; i < segmentCount; i++) {
+            segments.add(new Segment<>(segmentSize, evictions));
+        }
+        this.ttlNanos = ttlMillis > 0 ? ttlMillis * 1_000_000 : 0;
+    }
+
+    /**
+     * @return the cached value, or {@code null} when absent or expired
+     */
+    public V get(K key) {
+        Segment<K, V> segment = segmentFor(key);
+        CacheEntry<V> entry;
+        synchronized (segment) {
+            entry = segment.get(key);
+            if (entry != null && ttlNanos > 0 && System.nanoTime() - entry.writtenAt > ttlNanos) {
+                segment.remove(key);
+                evictions.increment();
+                entry = null;
+            }
+        }
+        if (entry == null) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return entry.value;
+    }
+
+    public void put(K key, V value) {
+        CacheEntry<V> entry = new CacheEntry<>(value, ttlNanos > 0 ? System.nanoTime() : 0);
+        Segment<K, V> segment = segmentFor(key);
+        synchronized (segment) {
+            segment.put(key, entry);
+        }
+    }
+
+    /**
+     * Removes the entries whose key matches the predicate.
+     */
+    public void invalidateIf(Predicate<? super K> predicate) {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.keySet().removeIf(predicate);
+            }
+        }
+    }
+
+    public void invalidateAll() {
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                segment.clear();
+            }
+        }
+    }
+
+    public CacheStats getStats() {
+        long size = 0;
+        for (Segment<K, V> segment : segments) {
+            synchronized (segment) {
+                size += segment.size();
+            }
+        }
+        return new CacheStats(hits.sum(), misses.sum(), evictions.sum(), size);
+    }
+
+    private Segment<K, V> segmentFor(K key) {
+        int hash = key != null ? key.hashCode() : 0;
+        hash ^= hash >>> 16;
+        return segments.get(hash & (segments.size() - 1));
+    }
+
+    private static final class CacheEntry<V> {
+
+        private final V value;
+        private final long writtenAt;
+
+        private CacheEntry(V value, long writtenAt) {
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+    }
+
+    private static final class Segment<K, V> extends LinkedHashMap<K, CacheEntry<V>> {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int maximumSize;
+        private final LongAdder evictions;
+
+        private Segment(int maximumSize, LongAdder evictions) {
+            super(16, 0.75f, true);
+            this.maximumSize = maximumSize;
+            this.evictions = evictions;
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<K, CacheEntry<V>> eldest) {
+            if (size() > maximumSize) {
+                evictions.increment();
+                return true;
+            }
+            return false;
+        }
+    }
+}
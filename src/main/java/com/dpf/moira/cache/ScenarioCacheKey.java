@@ -0,0 +1,14 @@
+package com.dpf.moira.cache;
+
+/**
+ * Uses the scenario itself as the key, relying on its {@code equals} and {@code hashCode}. Only suitable for immutable
+ * scenarios: a scenario changed after its result was cached can no longer be found, nor evicted by key.
+ */
+public class ScenarioCacheKey implements CacheKeyExtractor<Object> {
+
+    @Override
+    public Object extract(Object scenario) {
+        return scenario;
+    }
+
+}
@@ -0,0 +1,59 @@
+package com.dpf.moira.entity;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A node of a workflow that runs several branches in parallel and joins them before following its transitions. Each
+ * branch starts at one of the declared nodes and ends when it reaches a terminal node.
+ */
+public class Fork {
+
+    /**
+     * How the branches of a fork are joined.
+     */
+    public enum Join {
+
+        /**
+         * Waits for every branch. The fork fails as soon as one branch fails.
+         */
+        ALL,
+
+        /**
+         * Waits for the first branch that completes successfully, ignoring the failed ones. The fork fails only when
+         * every branch fails.
+         */
+        ANY,
+
+        /**
+         * Waits for the first branch that finishes, whether it completes or fails.
+         */
+        FIRST
+    }
+
+    private final List<NodeId> branches;
+    private final Join join;
+    private final String partitioner;
+
+    public Fork(final List<NodeId> branches, final Join join, final String partitioner) {
+        this.branches = Collections.unmodifiableList(branches);
+        this.join = join;
+        this.partitioner = partitioner;
+    }
+
+    public List<NodeId> getBranches() {
+        return branches;
+    }
+
+    public Join getJoin() {
+        return join;
+    }
+
+    /**
+     * @return the class name of the {@code ScenarioPartitioner} giving each branch its own scenario, or {@code null}
+     * when every branch runs on the scenario of the execution
+     */
+    public String getPartitioner() {
+        return partitioner;
+    }
+}
@@ -6,12 +6,33 @@ import java.util.Map;
 public class Transitions {
 
     private final Map<DecisionNodeResult, NodeId> transitions;
+    private final long timeoutMillis;
+    private final NodeId onTimeout;
 
     public Transitions(final Map<DecisionNodeResult, NodeId> transitions) {
+        this(transitions, 0, null);
+    }
+
+    /**
+     * @param timeoutMillis how long the node may run, or {@code 0} to use the timeout of its {@code Decision}
+     * @param onTimeout     the node to go to when the node times out, or {@code null}
+     */
+    public Transitions(final Map<DecisionNodeResult, NodeId> transitions, final long timeoutMillis,
+                       final NodeId onTimeout) {
         this.transitions = Collections.unmodifiableMap(transitions);
+        this.timeoutMillis = timeoutMillis;
+        this.onTimeout = onTimeout;
     }
 
     public Map<DecisionNodeResult, NodeId> getTransitions() {
         return transitions;
     }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public NodeId getOnTimeout() {
+        return onTimeout;
+    }
 }
\ No newline at end of file
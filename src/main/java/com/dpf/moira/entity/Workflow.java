@@ -8,11 +8,38 @@ public class Workflow {
     private final WorkflowId id;
     private final NodeId start;
     private final Map<NodeId, Transitions> transitionsByNode;
+    private final String cacheKey;
+    private final Map<NodeId, Fork> forks;
+    private final Map<NodeId, WorkflowId> calls;
+    private final Map<NodeId, NodeId> registeredNodes;
+    private final long timeoutMillis;
+    private final NodeId onTimeout;
 
     public Workflow(final WorkflowId id, final NodeId start, final Map<NodeId, Transitions> transitionsByNode) {
+        this(id, start, transitionsByNode, null, Collections.emptyMap(), Collections.emptyMap(), Collections.emptyMap(),
+                0, null);
+    }
+
+    /**
+     * @param cacheKey        the class name of the {@code CacheKeyExtractor} caching the outcome, or {@code null}
+     * @param forks           the nodes that fork into parallel branches
+     * @param calls           the nodes that call another workflow, with the ID of the workflow they call
+     * @param registeredNodes the ID each node is registered with, for the nodes whose ID in the workflow differs
+     * @param timeoutMillis   how long an execution may run, or {@code 0} when it is not bounded
+     * @param onTimeout       the node to go to when an execution runs out of time, or {@code null} to fail it
+     */
+    public Workflow(final WorkflowId id, final NodeId start, final Map<NodeId, Transitions> transitionsByNode,
+                    final String cacheKey, final Map<NodeId, Fork> forks, final Map<NodeId, WorkflowId> calls,
+                    final Map<NodeId, NodeId> registeredNodes, final long timeoutMillis, final NodeId onTimeout) {
         this.id = id;
         this.start = start;
         this.transitionsByNode = Collections.unmodifiableMap(transitionsByNode);
+        this.cacheKey = cacheKey;
+        this.forks = Collections.unmodifiableMap(forks);
+        this.calls = Collections.unmodifiableMap(calls);
+        this.registeredNodes = Collections.unmodifiableMap(registeredNodes);
+        this.timeoutMillis = timeoutMillis;
+        this.onTimeout = onTimeout;
     }
 
     public WorkflowId getId() {
@@ -26,4 +53,50 @@ public class Workflow {
     public Map<NodeId, Transitions> getTransitionsByNode() {
         return transitionsByNode;
     }
+
+    /**
+     * @return the class name of the {@code CacheKeyExtractor} used to cache the outcome of the workflow, or
+     * {@code null} when it is not cached
+     */
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    /**
+     * @return the nodes of the workflow that fork into parallel branches, a subset of the declared nodes
+     */
+    public Map<NodeId, Fork> getForks() {
+        return forks;
+    }
+
+    public boolean isFork(NodeId nodeId) {
+        return forks.containsKey(nodeId);
+    }
+
+    /**
+     * @return the nodes of the workflow that call another workflow, with the ID of the workflow they call
+     */
+    public Map<NodeId, WorkflowId> getCalls() {
+        return calls;
+    }
+
+    /**
+     * @return the ID the node is registered with, which differs from its ID in the workflow when it was inlined from
+     * a called workflow
+     */
+    public NodeId getRegisteredNode(NodeId nodeId) {
+        return registeredNodes.getOrDefault(nodeId, nodeId);
+    }
+
+    public Map<NodeId, NodeId> getRegisteredNodes() {
+        return registeredNodes;
+    }
+
+    public long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public NodeId getOnTimeout() {
+        return onTimeout;
+    }
 }
\ No newline at end of file
@@ -1,5 +1,7 @@
 package com.dpf.moira.entity;
 
+import java.util.Objects;
+
 public class WorkflowId {
 
     private final String value;
@@ -11,4 +13,22 @@ public class WorkflowId {
     public String getValue() {
         return value;
     }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null || getClass() != o.getClass()) return false;
+        WorkflowId workflowId = (WorkflowId) o;
+        return Objects.equals(value, workflowId.value);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(value);
+    }
+
+    @Override
+    public String toString() {
+        return value;
+    }
 }
\ No newline at end of file
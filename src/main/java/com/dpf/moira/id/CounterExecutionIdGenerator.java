@@ -0,0 +1,28 @@
+package com.dpf.moira.id;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A prefix followed by a monotonic counter, such as {@code k3f9a2-1}. The prefix identifies the instance and
+ * defaults to a random one, so IDs stay unique across instances that don't set it.
+ */
+public class CounterExecutionIdGenerator implements ExecutionIdGenerator {
+
+    private final String prefix;
+    private final AtomicLong counter = new AtomicLong();
+
+    public CounterExecutionIdGenerator() {
+        this(Long.toString(ThreadLocalRandom.current().nextLong() >>> 1, Character.MAX_RADIX));
+    }
+
+    public CounterExecutionIdGenerator(String prefix) {
+        this.prefix = prefix + "-";
+    }
+
+    @Override
+    public String generate() {
+        return prefix + counter.incrementAndGet();
+    }
+
+}
@@ -0,0 +1,14 @@
+package com.dpf.moira.id;
+
+/**
+ * Generates the ID of every workflow execution, available to nodes through {@code Scenario.getExecutionId()}.
+ * <p>
+ * Implementations are called once per execution from many threads at once, so they must be thread safe. Custom
+ * implementations are configured with their fully qualified class name in {@code executionIdGenerator} and need a
+ * public no-args constructor.
+ */
+public interface ExecutionIdGenerator {
+
+    String generate();
+
+}
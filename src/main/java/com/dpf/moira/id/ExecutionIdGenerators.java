@@ -0,0 +1,37 @@
+package com.dpf.moira.id;
+
+import com.dpf.moira.properties.ConfiguredClasses;
+
+import java.util.Locale;
+
+/**
+ * Resolves the {@code executionIdGenerator} property.
+ */
+public final class ExecutionIdGenerators {
+
+    private ExecutionIdGenerators() {
+    }
+
+    /**
+     * @param name one of {@code UUID}, {@code COUNTER}, {@code RANDOM}, {@code TIME_ORDERED}, or the fully qualified
+     *             class name of an {@link ExecutionIdGenerator}
+     * @param prefix the prefix of the {@code COUNTER} generator, or {@code null} for a random one
+     */
+    public static ExecutionIdGenerator fromName(String name, String prefix) {
+        switch (name.trim().toUpperCase(Locale.ROOT)) {
+            case "UUID":
+                return new UuidExecutionIdGenerator();
+            case "COUNTER":
+                return prefix != null && !prefix.isBlank()
+                        ? new CounterExecutionIdGenerator(prefix)
+                        : new CounterExecutionIdGenerator();
+            case "RANDOM":
+                return new RandomExecutionIdGenerator();
+            case "TIME_ORDERED":
+                return new TimeOrderedExecutionIdGenerator();
+            default:
+                return ConfiguredClasses.newInstance(name.trim(), ExecutionIdGenerator.class,
+                        "Invalid execution ID generator: " + name.trim());
+        }
+    }
+}
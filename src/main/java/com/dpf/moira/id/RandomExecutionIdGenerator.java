@@ -0,0 +1,15 @@
+package com.dpf.moira.id;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * A random 64 bit value from {@link ThreadLocalRandom}, written as 16 hexadecimal characters.
+ */
+public class RandomExecutionIdGenerator implements ExecutionIdGenerator {
+
+    @Override
+    public String generate() {
+        return Hex.toHex(ThreadLocalRandom.current().nextLong(), 16);
+    }
+
+}
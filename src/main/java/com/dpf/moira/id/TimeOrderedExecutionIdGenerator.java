@@ -0,0 +1,16 @@
+package com.dpf.moira.id;
+
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * The current time in milliseconds followed by random bits, written as 24 hexadecimal characters, so IDs sort by
+ * creation time.
+ */
+public class TimeOrderedExecutionIdGenerator implements ExecutionIdGenerator {
+
+    @Override
+    public String generate() {
+        return Hex.toHex(System.currentTimeMillis(), 12) + Hex.toHex(ThreadLocalRandom.current().nextLong(), 12);
+    }
+
+}
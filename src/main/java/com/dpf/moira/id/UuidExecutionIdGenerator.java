@@ -0,0 +1,15 @@
+package com.dpf.moira.id;
+
+import java.util.UUID;
+
+/**
+ * Random UUIDs. Globally unique but the slowest built-in, as it goes through {@link java.security.SecureRandom}.
+ */
+public class UuidExecutionIdGenerator implements ExecutionIdGenerator {
+
+    @Override
+    public String generate() {
+        return UUID.randomUUID().toString();
+    }
+
+}
@@ -0,0 +1,52 @@
+package com.dpf.moira.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps invocation counts, latency histograms, result distributions and error counts in memory, per workflow and
+ * per node.
+ */
+public class InMemoryMoiraMetrics implements MoiraMetrics {
+
+    private final Map<String, WorkflowStats> workflows = new ConcurrentHashMap<>();
+
+    @Override
+    public void recordNode(String workflowId, String nodeId, Enum<?> result, long durationNanos) {
+        workflow(workflowId).node(nodeId).record(result, durationNanos);
+    }
+
+    @Override
+    public void recordNodeError(String workflowId, String nodeId, Throwable error, long durationNanos) {
+        workflow(workflowId).node(nodeId).recordError(durationNanos);
+    }
+
+    @Override
+    public void recordWorkflow(String workflowId, long durationNanos) {
+        workflow(workflowId).record(durationNanos);
+    }
+
+    @Override
+    public void recordWorkflowError(String workflowId, Throwable error, long durationNanos) {
+        workflow(workflowId).recordError(durationNanos);
+    }
+
+    private WorkflowStats workflow(String workflowId) {
+        WorkflowStats stats = workflows.get(workflowId);
+        return stats != null ? stats : workflows.computeIfAbsent(workflowId, key -> new WorkflowStats());
+    }
+
+    public Optional<WorkflowStats> getWorkflow(String workflowId) {
+        return Optional.ofNullable(workflows.get(workflowId));
+    }
+
+    /**
+     * @return the metrics of every executed workflow, by workflow ID
+     */
+    public Map<String, WorkflowStats> getWorkflows() {
+        return Collections.unmodifiableMap(workflows);
+    }
+
+}
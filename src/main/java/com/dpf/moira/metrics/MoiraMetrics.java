@@ -0,0 +1,63 @@
+package com.dpf.moira.metrics;
+
+/**
+ * Receives the metrics of workflow and node executions.
+ * <p>
+ * Implementations are called on the execution hot path from many threads at once, so they must be thread safe and
+ * should avoid allocating. Custom implementations, for example bridging to Micrometer, can be passed to the
+ * {@code Moira} constructor or registered as a {@link java.util.ServiceLoader} provider of this interface.
+ */
+public interface MoiraMetrics {
+
+    /**
+     * Records a node that returned a result.
+     *
+     * @param workflowId    the ID of the workflow being executed
+     * @param nodeId        the ID of the executed node
+     * @param result        the result returned by the node
+     * @param durationNanos the time spent executing the node
+     */
+    void recordNode(String workflowId, String nodeId, Enum<?> result, long durationNanos);
+
+    /**
+     * Records a node that threw an error.
+     *
+     * @param workflowId    the ID of the workflow being executed
+     * @param nodeId        the ID of the executed node
+     * @param error         the error thrown by the node
+     * @param durationNanos the time spent executing the node
+     */
+    void recordNodeError(String workflowId, String nodeId, Throwable error, long durationNanos);
+
+    /**
+     * Records a workflow execution that ended successfully.
+     *
+     * @param workflowId    the ID of the executed workflow
+     * @param durationNanos the time spent executing the workflow
+     */
+    void recordWorkflow(String workflowId, long durationNanos);
+
+    /**
+     * Records a workflow execution that ended with an error.
+     *
+     * @param workflowId    the ID of the executed workflow
+     * @param error         the error that ended the execution
+     * @param durationNanos the time spent executing the workflow
+     */
+    void recordWorkflowError(String workflowId, Throwable error, long durationNanos);
+
+    /**
+     * @return metrics that discard everything
+     */
+    static MoiraMetrics noop() {
+        return NoopMoiraMetrics.INSTANCE;
+    }
+
+    /**
+     * @return whether this instance discards everything, so callers can skip measuring
+     */
+    default boolean isNoop() {
+        return false;
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.dpf.moira.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Metrics of one node within one workflow.
+ */
+public final class NodeStats {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, LongAdder> results = new ConcurrentHashMap<>();
+
+    NodeStats() {
+    }
+
+    void record(Enum<?> result, long durationNanos) {
+        latency.record(durationNanos);
+        String name = result != null ? result.name() : "null";
+        LongAdder counter = results.get(name);
+        if (counter == null) {
+            counter = results.computeIfAbsent(name, key -> new LongAdder());
+        }
+        counter.increment();
+    }
+
+    void recordError(long durationNanos) {
+        latency.record(durationNanos);
+        errors.increment();
+    }
+
+    public long getInvocations() {
+        return latency.getCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return how many times each result was returned, by result name
+     */
+    public Map<String, Long> getResults() {
+        return Collections.unmodifiableMap(results.entrySet().stream()
+                .collect(Collectors.toMap(Map.Entry::getKey, entry -> entry.getValue().sum())));
+    }
+}
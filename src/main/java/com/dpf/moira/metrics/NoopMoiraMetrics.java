@@ -0,0 +1,30 @@
+package com.dpf.moira.metrics;
+
+final class NoopMoiraMetrics implements MoiraMetrics {
+
+    static final NoopMoiraMetrics INSTANCE = new NoopMoiraMetrics();
+
+    private NoopMoiraMetrics() {
+    }
+
+    @Override
+    public void recordNode(String workflowId, String nodeId, Enum<?> result, long durationNanos) {
+    }
+
+    @Override
+    public void recordNodeError(String workflowId, String nodeId, Throwable error, long durationNanos) {
+    }
+
+    @Override
+    public void recordWorkflow(String workflowId, long durationNanos) {
+    }
+
+    @Override
+    public void recordWorkflowError(String workflowId, Throwable error, long durationNanos) {
+    }
+
+    @Override
+    public boolean isNoop() {
+        return true;
+    }
+}
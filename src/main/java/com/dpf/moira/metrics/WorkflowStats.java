@@ -0,0 +1,52 @@
+package com.dpf.moira.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Metrics of one workflow and of every node executed within it.
+ */
+public final class WorkflowStats {
+
+    private final LatencyHistogram latency = new LatencyHistogram();
+    private final LongAdder errors = new LongAdder();
+    private final Map<String, NodeStats> nodes = new ConcurrentHashMap<>();
+
+    WorkflowStats() {
+    }
+
+    NodeStats node(String nodeId) {
+        NodeStats stats = nodes.get(nodeId);
+        return stats != null ? stats : nodes.computeIfAbsent(nodeId, key -> new NodeStats());
+    }
+
+    void record(long durationNanos) {
+        latency.record(durationNanos);
+    }
+
+    void recordError(long durationNanos) {
+        latency.record(durationNanos);
+        errors.increment();
+    }
+
+    public long getInvocations() {
+        return latency.getCount();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public LatencyHistogram getLatency() {
+        return latency;
+    }
+
+    /**
+     * @return the metrics of every executed node, by node ID
+     */
+    public Map<String, NodeStats> getNodes() {
+        return Collections.unmodifiableMap(nodes);
+    }
+}
@@ -0,0 +1,29 @@
+package com.dpf.moira.properties;
+
+/**
+ * Instantiates the classes named in properties and workflow definitions. Used internally by Moira, not meant to be
+ * called by applications.
+ */
+public final class ConfiguredClasses {
+
+    private ConfiguredClasses() {
+    }
+
+    /**
+     * Loads the class through the context class loader, or the one of Moira when there is none, and calls its
+     * no-args constructor.
+     *
+     * @param errorMessage the message of the exception thrown when the class cannot be instantiated
+     * @throws IllegalArgumentException when the class cannot be instantiated or is not a {@code type}
+     */
+    public static <T> T newInstance(String className, Class<T> type, String errorMessage) {
+        try {
+            ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+            Class<?> instanceClass = Class.forName(className, true,
+                    classLoader != null ? classLoader : ConfiguredClasses.class.getClassLoader());
+            return type.cast(instanceClass.getDeclaredConstructor().newInstance());
+        } catch (ReflectiveOperationException | ClassCastException e) {
+            throw new IllegalArgumentException(errorMessage, e);
+        }
+    }
+}
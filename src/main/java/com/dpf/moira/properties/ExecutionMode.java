@@ -0,0 +1,19 @@
+package com.dpf.moira.properties;
+
+/**
+ * How {@code Moira.decide} walks a workflow.
+ */
+public enum ExecutionMode {
+
+    /**
+     * Every hop is a signal of a reactive state machine, so cancellation is checked between nodes.
+     */
+    REACTIVE,
+
+    /**
+     * The whole workflow is walked in a plain loop inside a single {@code Mono}, with no per node assembly. Workflows
+     * with asynchronous nodes, forks or limited nodes are still run reactively, so that no thread is blocked.
+     */
+    SYNC
+
+}
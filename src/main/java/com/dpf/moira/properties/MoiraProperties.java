@@ -4,8 +4,48 @@ public class MoiraProperties {
 
     private String workflowFilesPath = "workflows";
 
+    private String workflowIndexPath = "moira-workflows.bin";
+
+    private String workflowSource = "CLASSPATH";
+
+    private boolean lazyLoading = false;
+
+    private ValidationMode validationMode = ValidationMode.WARN;
+
     private boolean hotReloadMode = false;
 
+    private long hotReloadIntervalMillis = 1000;
+
+    private ExecutionMode executionMode = ExecutionMode.REACTIVE;
+
+    private TraceLevel traceLevel = TraceLevel.FULL;
+
+    private int maxHops = 0;
+
+    private String executionIdGenerator = "UUID";
+
+    private String executionIdPrefix;
+
+    private SchedulerType scheduler = SchedulerType.BOUNDED_ELASTIC;
+
+    private int batchParallelism = Runtime.getRuntime().availableProcessors();
+
+    private boolean metricsEnabled = false;
+
+    private int traceBufferSize = 0;
+
+    private int workflowCacheSize = 10000;
+
+    private long workflowCacheTtlMillis = 0;
+
+    private String generatedWorkflows = "";
+
+    private String nodeMaxConcurrency = "";
+
+    private String nodeMaxRatePerSecond = "";
+
+    private String nodeOverflowResults = "";
+
     public String getWorkflowFilesPath() {
         return workflowFilesPath;
     }
@@ -14,6 +54,38 @@ public class MoiraProperties {
         this.workflowFilesPath = workflowFilesPath;
     }
 
+    public String getWorkflowIndexPath() {
+        return workflowIndexPath;
+    }
+
+    public void setWorkflowIndexPath(String workflowIndexPath) {
+        this.workflowIndexPath = workflowIndexPath;
+    }
+
+    public String getWorkflowSource() {
+        return workflowSource;
+    }
+
+    public void setWorkflowSource(String workflowSource) {
+        this.workflowSource = workflowSource;
+    }
+
+    public boolean isLazyLoading() {
+        return lazyLoading;
+    }
+
+    public void setLazyLoading(boolean lazyLoading) {
+        this.lazyLoading = lazyLoading;
+    }
+
+    public ValidationMode getValidationMode() {
+        return validationMode;
+    }
+
+    public void setValidationMode(ValidationMode validationMode) {
+        this.validationMode = validationMode;
+    }
+
     public boolean isHotReloadMode() {
         return hotReloadMode;
     }
@@ -22,4 +94,132 @@ public class MoiraProperties {
         this.hotReloadMode = hotReloadMode;
     }
 
+    public long getHotReloadIntervalMillis() {
+        return hotReloadIntervalMillis;
+    }
+
+    public void setHotReloadIntervalMillis(long hotReloadIntervalMillis) {
+        this.hotReloadIntervalMillis = hotReloadIntervalMillis;
+    }
+
+    public ExecutionMode getExecutionMode() {
+        return executionMode;
+    }
+
+    public void setExecutionMode(ExecutionMode executionMode) {
+        this.executionMode = executionMode;
+    }
+
+    public TraceLevel getTraceLevel() {
+        return traceLevel;
+    }
+
+    public void setTraceLevel(TraceLevel traceLevel) {
+        this.traceLevel = traceLevel;
+    }
+
+    public int getMaxHops() {
+        return maxHops;
+    }
+
+    public void setMaxHops(int maxHops) {
+        this.maxHops = maxHops;
+    }
+
+    public String getExecutionIdGenerator() {
+        return executionIdGenerator;
+    }
+
+    public void setExecutionIdGenerator(String executionIdGenerator) {
+        this.executionIdGenerator = executionIdGenerator;
+    }
+
+    public String getExecutionIdPrefix() {
+        return executionIdPrefix;
+    }
+
+    public void setExecutionIdPrefix(String executionIdPrefix) {
+        this.executionIdPrefix = executionIdPrefix;
+    }
+
+    public SchedulerType getScheduler() {
+        return scheduler;
+    }
+
+    public void setScheduler(SchedulerType scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    public int getBatchParallelism() {
+        return batchParallelism;
+    }
+
+    public void setBatchParallelism(int batchParallelism) {
+        this.batchParallelism = batchParallelism;
+    }
+
+    public boolean isMetricsEnabled() {
+        return metricsEnabled;
+    }
+
+    public void setMetricsEnabled(boolean metricsEnabled) {
+        this.metricsEnabled = metricsEnabled;
+    }
+
+    public int getWorkflowCacheSize() {
+        return workflowCacheSize;
+    }
+
+    public void setWorkflowCacheSize(int workflowCacheSize) {
+        this.workflowCacheSize = workflowCacheSize;
+    }
+
+    public long getWorkflowCacheTtlMillis() {
+        return workflowCacheTtlMillis;
+    }
+
+    public void setWorkflowCacheTtlMillis(long workflowCacheTtlMillis) {
+        this.workflowCacheTtlMillis = workflowCacheTtlMillis;
+    }
+
+    public String getGeneratedWorkflows() {
+        return generatedWorkflows;
+    }
+
+    public void setGeneratedWorkflows(String generatedWorkflows) {
+        this.generatedWorkflows = generatedWorkflows;
+    }
+
+    public String getNodeMaxConcurrency() {
+        return nodeMaxConcurrency;
+    }
+
+    public void setNodeMaxConcurrency(String nodeMaxConcurrency) {
+        this.nodeMaxConcurrency = nodeMaxConcurrency;
+    }
+
+    public String getNodeMaxRatePerSecond() {
+        return nodeMaxRatePerSecond;
+    }
+
+    public void setNodeMaxRatePerSecond(String nodeMaxRatePerSecond) {
+        this.nodeMaxRatePerSecond = nodeMaxRatePerSecond;
+    }
+
+    public String getNodeOverflowResults() {
+        return nodeOverflowResults;
+    }
+
+    public void setNodeOverflowResults(String nodeOverflowResults) {
+        this.nodeOverflowResults = nodeOverflowResults;
+    }
+
+    public int getTraceBufferSize() {
+        return traceBufferSize;
+    }
+
+    public void setTraceBufferSize(int traceBufferSize) {
+        this.traceBufferSize = traceBufferSize;
+    }
+
 }
@@ -55,8 +55,11 @@ public class PropertiesLoader {
         }
     }
 
+    @SuppressWarnings({"unchecked", "rawtypes"})
     private Object convertValue(String propertyValue, Class<?> fieldType) {
-        if (fieldType == boolean.class || fieldType == Boolean.class) {
+        if (fieldType.isEnum()) {
+            return Enum.valueOf((Class<? extends Enum>) fieldType, propertyValue.trim().toUpperCase());
+        } else if (fieldType == boolean.class || fieldType == Boolean.class) {
             return Boolean.parseBoolean(propertyValue);
         } else if (fieldType == int.class || fieldType == Integer.class) {
             return Integer.parseInt(propertyValue);
@@ -0,0 +1,23 @@
+package com.dpf.moira.properties;
+
+/**
+ * The scheduler that runs asynchronous and batch executions.
+ */
+public enum SchedulerType {
+
+    /**
+     * Reactor's bounded elastic scheduler, suited to nodes that block.
+     */
+    BOUNDED_ELASTIC,
+
+    /**
+     * Reactor's parallel scheduler, one thread per core, suited to CPU only nodes that never block.
+     */
+    PARALLEL,
+
+    /**
+     * A virtual thread per execution, on JDK 21 or later. Falls back to {@link #BOUNDED_ELASTIC} on older JDKs.
+     */
+    VIRTUAL_THREADS
+
+}
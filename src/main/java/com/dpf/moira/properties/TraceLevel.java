@@ -0,0 +1,23 @@
+package com.dpf.moira.properties;
+
+/**
+ * How much of an execution is written to the debug log.
+ */
+public enum TraceLevel {
+
+    /**
+     * Nothing is logged, even with debug enabled.
+     */
+    OFF,
+
+    /**
+     * Executed nodes, their results and the transitions taken.
+     */
+    TRANSITIONS,
+
+    /**
+     * Same as {@link #TRANSITIONS}, plus the scenario each node is executed with and the one the execution ends with.
+     */
+    FULL
+
+}
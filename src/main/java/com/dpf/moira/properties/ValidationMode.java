@@ -0,0 +1,23 @@
+package com.dpf.moira.properties;
+
+/**
+ * What happens when a workflow does not match the registered nodes, at startup or when it is reloaded.
+ */
+public enum ValidationMode {
+
+    /**
+     * Workflows are not validated.
+     */
+    OFF,
+
+    /**
+     * Problems are logged as warnings and the workflows are used anyway.
+     */
+    WARN,
+
+    /**
+     * Problems fail the construction of {@code Moira}, or the reload, which keeps the previous workflows.
+     */
+    FAIL
+
+}
@@ -0,0 +1,88 @@
+package com.dpf.moira.source;
+
+import com.dpf.moira.yaml.WorkFlowYml;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.net.URL;
+import java.nio.file.FileSystemAlreadyExistsException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Reads the workflow files of a classpath directory, either on the file system or packaged inside a JAR, which is
+ * opened as a zip file system.
+ */
+public final class ClasspathWorkflowSource implements WorkflowSource {
+
+    private final String location;
+
+    private volatile WorkflowSource delegate;
+
+    public ClasspathWorkflowSource(String location) {
+        if (location == null) {
+            throw new IllegalArgumentException("location cannot be null");
+        }
+        this.location = location;
+    }
+
+    @Override
+    public List<WorkFlowYml> loadAll() {
+        return delegate().loadAll();
+    }
+
+    @Override
+    public Optional<WorkFlowYml> load(String workflowId) {
+        return delegate().load(workflowId);
+    }
+
+    private WorkflowSource delegate() {
+        WorkflowSource source = delegate;
+        if (source == null) {
+            synchronized (this) {
+                source = delegate;
+                if (source == null) {
+                    Path directory = resolve();
+                    source = directory != null
+                            ? new DirectoryWorkflowSource(directory)
+                            : new InMemoryWorkflowSource(Collections.emptyList());
+                    delegate = source;
+                }
+            }
+        }
+        return source;
+    }
+
+    private Path resolve() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+        URL resourceURL = (classLoader != null ? classLoader : getClass().getClassLoader()).getResource(location);
+        if (resourceURL == null) {
+            return null;
+        }
+        try {
+            URI resourceURI = resourceURL.toURI();
+            if ("jar".equals(resourceURI.getScheme())) {
+                openFileSystem(resourceURI);
+            }
+            return Paths.get(resourceURI);
+        } catch (URISyntaxException e) {
+            throw new IllegalArgumentException("Invalid workflow location: " + resourceURL, e);
+        }
+    }
+
+    private static void openFileSystem(URI jarURI) {
+        try {
+            FileSystems.newFileSystem(jarURI, Collections.emptyMap());
+        } catch (FileSystemAlreadyExistsException e) {
+            // opened by an earlier source, Paths.get resolves against it
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open " + jarURI, e);
+        }
+    }
+}
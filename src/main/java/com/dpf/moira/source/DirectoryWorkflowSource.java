@@ -0,0 +1,103 @@
+package com.dpf.moira.source;
+
+import com.dpf.moira.yaml.WorkFlowYml;
+
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * Reads the workflow files ({@code .yml} or {@code .yaml}) of a directory and its subdirectories.
+ * <p>
+ * When a single workflow is requested, a file named after the workflow ID is tried first. Only when there is none
+ * are the remaining files parsed, once, to find out which workflow each of them declares. Parsed workflows are not
+ * kept, only the file each ID was found in.
+ * <p>
+ * {@link #loadAll()} lists the directory again every time, so it sees files added, changed or removed since. Single
+ * lookups use the listing of the last {@code loadAll()} or of the first lookup.
+ */
+public final class DirectoryWorkflowSource implements WorkflowSource {
+
+    private final Path directory;
+
+    private List<Path> files;
+
+    private final Map<String, Path> filesById = new HashMap<>();
+
+    private final Set<Path> indexedFiles = new HashSet<>();
+
+    public DirectoryWorkflowSource(Path directory) {
+        if (directory == null) {
+            throw new IllegalArgumentException("directory cannot be null");
+        }
+        this.directory = directory;
+    }
+
+    @Override
+    public synchronized List<WorkFlowYml> loadAll() {
+        files = WorkflowFiles.list(directory);
+        filesById.clear();
+        indexedFiles.clear();
+        List<WorkFlowYml> workflows = new ArrayList<>();
+        for (Path file : files) {
+            WorkFlowYml workflow = WorkflowFiles.parse(file);
+            if (workflow != null) {
+                index(file, workflow);
+                workflows.add(workflow);
+            }
+        }
+        return workflows;
+    }
+
+    @Override
+    public synchronized Optional<WorkFlowYml> load(String workflowId) {
+        Path file = filesById.get(workflowId);
+        if (file != null) {
+            return Optional.ofNullable(WorkflowFiles.parse(file)).filter(workflow -> workflowId.equals(workflow.getId()));
+        }
+
+        List<Path> files = files();
+        for (Path candidate : files) {
+            if (!indexedFiles.contains(candidate) && isNamedAfter(candidate, workflowId)) {
+                WorkFlowYml workflow = index(candidate, WorkflowFiles.parse(candidate));
+                if (workflow != null && workflowId.equals(workflow.getId())) {
+                    return Optional.of(workflow);
+                }
+            }
+        }
+        for (Path candidate : files) {
+            if (!indexedFiles.contains(candidate)) {
+                WorkFlowYml workflow = index(candidate, WorkflowFiles.parse(candidate));
+                if (workflow != null && workflowId.equals(workflow.getId())) {
+                    return Optional.of(workflow);
+                }
+            }
+        }
+        return Optional.empty();
+    }
+
+    private List<Path> files() {
+        if (files == null) {
+            files = WorkflowFiles.list(directory);
+        }
+        return files;
+    }
+
+    private WorkFlowYml index(Path file, WorkFlowYml workflow) {
+        indexedFiles.add(file);
+        if (workflow != null && workflow.getId() != null) {
+            filesById.putIfAbsent(workflow.getId(), file);
+        }
+        return workflow;
+    }
+
+    private static boolean isNamedAfter(Path file, String workflowId) {
+        String fileName = String.valueOf(file.getFileName());
+        return fileName.equals(workflowId + ".yml") || fileName.equals(workflowId + ".yaml");
+    }
+}
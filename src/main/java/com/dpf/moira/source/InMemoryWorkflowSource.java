@@ -0,0 +1,55 @@
+package com.dpf.moira.source;
+
+import com.dpf.moira.yaml.WorkFlowYml;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds workflows built programmatically or parsed from YAML strings.
+ */
+public final class InMemoryWorkflowSource implements WorkflowSource {
+
+    private final Map<String, WorkFlowYml> workflows = new ConcurrentHashMap<>();
+
+    public InMemoryWorkflowSource(Collection<WorkFlowYml> workflows) {
+        workflows.forEach(this::put);
+    }
+
+    /**
+     * @param documents the YAML definitions of the workflows, one per document
+     */
+    public static InMemoryWorkflowSource fromYaml(String... documents) {
+        List<WorkFlowYml> workflows = new ArrayList<>();
+        for (String document : documents) {
+            workflows.add(WorkflowFiles.parse(new ByteArrayInputStream(document.getBytes(StandardCharsets.UTF_8))));
+        }
+        return new InMemoryWorkflowSource(workflows);
+    }
+
+    /**
+     * Adds or replaces a workflow. Only executions of workflows not loaded yet see the change.
+     */
+    public void put(WorkFlowYml workflow) {
+        if (workflow == null || workflow.getId() == null) {
+            throw new IllegalArgumentException("workflow id cannot be null");
+        }
+        workflows.put(workflow.getId(), workflow);
+    }
+
+    @Override
+    public List<WorkFlowYml> loadAll() {
+        return new ArrayList<>(workflows.values());
+    }
+
+    @Override
+    public Optional<WorkFlowYml> load(String workflowId) {
+        return Optional.ofNullable(workflows.get(workflowId));
+    }
+}
@@ -0,0 +1,54 @@
+package com.dpf.moira.source;
+
+import com.dpf.moira.yaml.WorkFlowYml;
+import org.yaml.snakeyaml.Yaml;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+final class WorkflowFiles {
+
+    private WorkflowFiles() {
+    }
+
+    static boolean isWorkflowFile(Path path) {
+        String fileName = String.valueOf(path.getFileName());
+        return fileName.endsWith(".yml") || fileName.endsWith(".yaml");
+    }
+
+    /**
+     * Lists the workflow files of a directory and its subdirectories. Works on any file system, including the zip
+     * file system of a JAR.
+     */
+    static List<Path> list(Path directory) {
+        if (!Files.isDirectory(directory)) {
+            return List.of();
+        }
+        try (Stream<Path> paths = Files.walk(directory)) {
+            return paths.filter(Files::isRegularFile)
+                    .filter(WorkflowFiles::isWorkflowFile)
+                    .sorted()
+                    .collect(Collectors.toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to list workflow files in " + directory, e);
+        }
+    }
+
+    static WorkFlowYml parse(Path file) {
+        try (InputStream inputStream = Files.newInputStream(file)) {
+            return parse(inputStream);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read YAML file: " + file, e);
+        }
+    }
+
+    static WorkFlowYml parse(InputStream inputStream) {
+        return new Yaml().loadAs(inputStream, WorkFlowYml.class);
+    }
+}
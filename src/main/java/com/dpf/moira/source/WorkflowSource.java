@@ -0,0 +1,30 @@
+package com.dpf.moira.source;
+
+import com.dpf.moira.yaml.WorkFlowYml;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Where workflow definitions are read from.
+ * <p>
+ * Implementations may be called from many threads at once, so they must be thread safe. Custom implementations are
+ * configured with their fully qualified class name in {@code workflowSource} and need a public no-args constructor,
+ * or can be passed to the {@code Moira} constructor.
+ */
+public interface WorkflowSource {
+
+    /**
+     * @return every workflow of the source
+     */
+    List<WorkFlowYml> loadAll();
+
+    /**
+     * Loads a single workflow, used when workflows are loaded lazily on first use.
+     *
+     * @param workflowId the ID of the workflow
+     * @return the workflow, or empty when the source has no workflow with that ID
+     */
+    Optional<WorkFlowYml> load(String workflowId);
+
+}
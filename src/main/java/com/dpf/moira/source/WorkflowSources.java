@@ -0,0 +1,33 @@
+package com.dpf.moira.source;
+
+import com.dpf.moira.properties.ConfiguredClasses;
+
+import java.nio.file.Paths;
+import java.util.Locale;
+
+/**
+ * Resolves the {@code workflowSource} property.
+ */
+public final class WorkflowSources {
+
+    private WorkflowSources() {
+    }
+
+    /**
+     * @param name     one of {@code CLASSPATH}, {@code DIRECTORY}, or the fully qualified class name of a
+     *                 {@link WorkflowSource}
+     * @param location the classpath location of the workflow files for {@code CLASSPATH}, or their directory on the
+     *                 file system for {@code DIRECTORY}
+     */
+    public static WorkflowSource fromName(String name, String location) {
+        switch (name.trim().toUpperCase(Locale.ROOT)) {
+            case "CLASSPATH":
+                return new ClasspathWorkflowSource(location);
+            case "DIRECTORY":
+                return new DirectoryWorkflowSource(Paths.get(location));
+            default:
+                return ConfiguredClasses.newInstance(name.trim(), WorkflowSource.class,
+                        "Invalid workflow source: " + name.trim());
+        }
+    }
+}
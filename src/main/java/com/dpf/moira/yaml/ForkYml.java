@@ -0,0 +1,45 @@
+package com.dpf.moira.yaml;
+
+import java.util.Collections;
+import java.util.List;
+
+public class ForkYml {
+
+    private String join;
+    private String partitioner;
+    private List<String> branches;
+
+    public ForkYml() {
+    }
+
+    public ForkYml(String join, String partitioner, List<String> branches) {
+        this.join = join;
+        this.partitioner = partitioner;
+        this.branches = branches;
+    }
+
+    public String getJoin() {
+        return join;
+    }
+
+    public void setJoin(String join) {
+        this.join = join;
+    }
+
+    public String getPartitioner() {
+        return partitioner;
+    }
+
+    public void setPartitioner(String partitioner) {
+        this.partitioner = partitioner;
+    }
+
+    public List<String> getBranches() {
+        return branches != null ? branches : Collections.emptyList();
+    }
+
+    public void setBranches(List<String> branches) {
+        this.branches = branches;
+    }
+
+}
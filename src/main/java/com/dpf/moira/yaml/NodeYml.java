@@ -7,6 +7,10 @@ public class NodeYml {
 
     private String id;
     private List<TransitionYml> transitions;
+    private ForkYml fork;
+    private String call;
+    private Long timeoutMillis;
+    private String onTimeout;
 
     public NodeYml() {
     }
@@ -32,4 +36,36 @@ public class NodeYml {
         this.transitions = transitions;
     }
 
+    public ForkYml getFork() {
+        return fork;
+    }
+
+    public void setFork(ForkYml fork) {
+        this.fork = fork;
+    }
+
+    public String getCall() {
+        return call;
+    }
+
+    public void setCall(String call) {
+        this.call = call;
+    }
+
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public String getOnTimeout() {
+        return onTimeout;
+    }
+
+    public void setOnTimeout(String onTimeout) {
+        this.onTimeout = onTimeout;
+    }
+
 }
@@ -8,6 +8,9 @@ public class WorkFlowYml {
     private String id;
     private String start;
     private List<NodeYml> nodes;
+    private String cacheKey;
+    private Long timeoutMillis;
+    private String onTimeout;
 
     public WorkFlowYml() {
     }
@@ -42,4 +45,28 @@ public class WorkFlowYml {
         this.nodes = nodes;
     }
 
+    public String getCacheKey() {
+        return cacheKey;
+    }
+
+    public void setCacheKey(String cacheKey) {
+        this.cacheKey = cacheKey;
+    }
+
+    public Long getTimeoutMillis() {
+        return timeoutMillis;
+    }
+
+    public void setTimeoutMillis(Long timeoutMillis) {
+        this.timeoutMillis = timeoutMillis;
+    }
+
+    public String getOnTimeout() {
+        return onTimeout;
+    }
+
+    public void setOnTimeout(String onTimeout) {
+        this.onTimeout = onTimeout;
+    }
+
 }
@@ -1,8 +1,12 @@
 package com.dpf.moira.yaml.mapper;
 
 import com.dpf.moira.entity.*;
+import com.dpf.moira.yaml.ForkYml;
+import com.dpf.moira.yaml.NodeYml;
 import com.dpf.moira.yaml.WorkFlowYml;
 
+import java.util.HashMap;
+import java.util.Locale;
 import java.util.Map;
 import java.util.stream.Collectors;
 
@@ -18,8 +22,45 @@ public class WorkFlowYmlMapper {
                                 node.getTransitions().stream()
                                         .collect(Collectors.toUnmodifiableMap(
                                                 transition -> new DecisionNodeResult(transition.getResult()),
-                                                transition -> new NodeId(transition.getNext()))))));
-        return new Workflow(decisionTreeId, start, transitionsByNode);
+                                                transition -> new NodeId(transition.getNext()))),
+                                millis(node.getTimeoutMillis()),
+                                toNodeId(node.getOnTimeout()))));
+        Map<NodeId, Fork> forks = new HashMap<>();
+        Map<NodeId, WorkflowId> calls = new HashMap<>();
+        for (NodeYml node : yml.getNodes()) {
+            if (node.getFork() != null) {
+                forks.put(new NodeId(node.getId()), toEntity(node.getFork()));
+            }
+            if (node.getCall() != null && !node.getCall().isBlank()) {
+                calls.put(new NodeId(node.getId()), new WorkflowId(node.getCall().trim()));
+            }
+        }
+        return new Workflow(decisionTreeId, start, transitionsByNode, yml.getCacheKey(), forks, calls, Map.of(),
+                millis(yml.getTimeoutMillis()), toNodeId(yml.getOnTimeout()));
+    }
+
+    private static long millis(Long millis) {
+        return millis != null ? millis : 0;
+    }
+
+    private static NodeId toNodeId(String id) {
+        return id != null && !id.isBlank() ? new NodeId(id.trim()) : null;
+    }
+
+    private static Fork toEntity(ForkYml yml) {
+        return new Fork(
+                yml.getBranches().stream().map(NodeId::new).collect(Collectors.toList()),
+                toJoin(yml.getJoin()),
+                yml.getPartitioner());
+    }
+
+    /**
+     * @throws IllegalArgumentException when the join is not one of {@link Fork.Join}
+     */
+    public static Fork.Join toJoin(String join) {
+        return join == null || join.isBlank()
+                ? Fork.Join.ALL
+                : Fork.Join.valueOf(join.trim().toUpperCase(Locale.ROOT));
     }
 
 }